@@ -1,8 +1,14 @@
 package com.mtomics.context;
 
+import com.mtomics.utils.AccountPool;
+import com.mtomics.utils.FixtureSeeder;
 import org.openqa.selenium.WebDriver;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -13,12 +19,20 @@ public class TestContext {
 
     private WebDriver driver;
     private Map<String, Object> scenarioContext;
+    private List<AccountPool.Lease> accountLeases;
+    private Collection<String> scenarioTags;
+    private int completedSteps;
+    private int restoredBackgroundSteps;
+    private boolean restoreChecked;
+    private FixtureSeeder.Fixtures fixtures;
 
     /**
      * Constructor
      */
     public TestContext() {
         this.scenarioContext = new HashMap<>();
+        this.accountLeases = new ArrayList<>();
+        this.scenarioTags = Collections.emptyList();
     }
 
     /**
@@ -39,6 +53,146 @@ public class TestContext {
         this.driver = driver;
     }
 
+    /**
+     * Get the tags of the running scenario
+     * 
+     * @return Tag names, e.g. @adminlogin
+     */
+    public Collection<String> getScenarioTags() {
+        return scenarioTags;
+    }
+
+    /**
+     * Set the tags of the running scenario
+     * 
+     * @param scenarioTags Tag names
+     */
+    public void setScenarioTags(Collection<String> scenarioTags) {
+        this.scenarioTags = scenarioTags;
+    }
+
+    /**
+     * Remember an account leased for this scenario
+     * 
+     * @param lease Account lease
+     */
+    public void addAccountLease(AccountPool.Lease lease) {
+        accountLeases.add(lease);
+    }
+
+    /**
+     * Get an account of a role already leased for this scenario
+     * 
+     * @param role Account role
+     * @return Lease, or null if none of that role is held
+     */
+    public AccountPool.Lease getAccountLease(String role) {
+        for (AccountPool.Lease lease : accountLeases) {
+            if (lease.getAccount().getRole().equalsIgnoreCase(role)) {
+                return lease;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the accounts leased for this scenario so far
+     * 
+     * @return Accounts in lease order
+     */
+    public List<AccountPool.Account> getLeasedAccounts() {
+        List<AccountPool.Account> accounts = new ArrayList<>();
+        accountLeases.forEach(lease -> accounts.add(lease.getAccount()));
+        return accounts;
+    }
+
+    /**
+     * Remove and return the accounts leased for this scenario
+     * 
+     * @return Account leases
+     */
+    public List<AccountPool.Lease> takeAccountLeases() {
+        List<AccountPool.Lease> leases = new ArrayList<>(accountLeases);
+        accountLeases.clear();
+        return leases;
+    }
+
+    /**
+     * Get the fixtures seeded through the API for this scenario
+     * 
+     * @return Fixtures, or null if none were seeded yet
+     */
+    public FixtureSeeder.Fixtures getFixtures() {
+        return fixtures;
+    }
+
+    /**
+     * Set the fixtures seeded through the API for this scenario
+     * 
+     * @param fixtures Fixtures
+     */
+    public void setFixtures(FixtureSeeder.Fixtures fixtures) {
+        this.fixtures = fixtures;
+    }
+
+    /**
+     * Count a finished step
+     * 
+     * @return Steps finished so far, Background included
+     */
+    public int completeStep() {
+        restoreChecked = false;
+        return ++completedSteps;
+    }
+
+    /**
+     * Record that the Background's state was restored from a checkpoint
+     * 
+     * @param backgroundSteps Number of Background steps that need not run
+     */
+    public void markBackgroundRestored(int backgroundSteps) {
+        this.restoredBackgroundSteps = backgroundSteps;
+    }
+
+    /**
+     * Check if the Background's state was restored from a checkpoint
+     * 
+     * @return boolean
+     */
+    public boolean isBackgroundRestored() {
+        return restoredBackgroundSteps > 0;
+    }
+
+    /**
+     * Check if the running step is a Background step whose effect was restored from a checkpoint
+     * Step definitions used in @checkpoint Backgrounds return early when this is true
+     * 
+     * @return boolean
+     */
+    public boolean isRestoredBackgroundStep() {
+        restoreChecked = true;
+        return completedSteps < restoredBackgroundSteps;
+    }
+
+    /**
+     * Check if the running step is a restored Background step whose definition ran without
+     * asking {@link #isRestoredBackgroundStep()}, i.e. it redid work the checkpoint already covers
+     * 
+     * @return boolean
+     */
+    public boolean isUnguardedRestoredStep() {
+        return completedSteps < restoredBackgroundSteps && !restoreChecked;
+    }
+
+    /**
+     * Copy all scenario context values
+     * 
+     * @return Snapshot of the scenario context
+     */
+    public Map<String, Object> getContextSnapshot() {
+        return new HashMap<>(scenarioContext);
+    }
+
     /**
      * Set scenario context value
      * 
@@ -1,25 +1,47 @@
 package com.mtomics.hooks;
 
 import com.mtomics.context.TestContext;
+import com.mtomics.utils.AccountPool;
+import com.mtomics.utils.AppReadiness;
+import com.mtomics.utils.BackgroundCheckpoints;
 import com.mtomics.utils.ConfigReader;
+import com.mtomics.utils.DriverBinaryResolver;
 import com.mtomics.utils.DriverManager;
+import com.mtomics.utils.DriverSupervisor;
+import com.mtomics.utils.ExtentReportManager;
+import com.mtomics.utils.FailFast;
+import com.mtomics.utils.FixtureSeeder;
+import com.mtomics.utils.NavigationPlanner;
+import com.mtomics.utils.OrphanProcessReaper;
+import com.mtomics.utils.ResourceLocks;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
+import io.cucumber.java.BeforeAll;
+import io.cucumber.java.AfterStep;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.AssumptionViolatedException;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Hooks class for Cucumber Before and After scenarios
  */
 public class Hooks {
 
     private static final Logger logger = LogManager.getLogger(Hooks.class);
+    private static final String INFRASTRUCTURE_FAILURE = "infrastructureFailure";
+    private static final String SCENARIO_LOG_KEY = "scenario";
     private TestContext context;
     private ConfigReader configReader;
+    private List<ResourceLocks.HeldLock> resourceLocks = Collections.emptyList();
 
     /**
      * Constructor with Dependency Injection
@@ -31,6 +53,70 @@ public class Hooks {
         this.configReader = new ConfigReader();
     }
 
+    /**
+     * Run-wide setup, once per JVM before the first scenario
+     * Orphans of crashed runs are killed here, before this run launches any browser
+     */
+    @BeforeAll
+    public static void prepareRun() {
+        OrphanProcessReaper.initialize();
+    }
+
+    /**
+     * Tag every log line of this scenario with its name (and browser in a matrix run);
+     * on virtual threads the thread name alone no longer tells scenarios apart
+     * 
+     * @param scenario Cucumber scenario
+     */
+    @Before(order = 0)
+    public void bindLogContext(Scenario scenario) {
+        ThreadContext.put(SCENARIO_LOG_KEY, DriverManager.isMatrixScenario()
+                ? scenario.getName() + " @ " + DriverManager.getBrowser() : scenario.getName());
+    }
+
+    /**
+     * Clear the scenario's log context once every other After hook has run
+     */
+    @After(order = 0)
+    public void clearLogContext() {
+        ThreadContext.remove(SCENARIO_LOG_KEY);
+    }
+
+    /**
+     * Skip the scenario once the fail-fast threshold has been reached,
+     * before it takes a lock, account or browser
+     * 
+     * @param scenario Cucumber scenario
+     */
+    @Before(order = 1)
+    public void skipWhenFailFastTripped(Scenario scenario) {
+        if (FailFast.isTripped()) {
+            logger.warn("Skipping '{}': fail-fast threshold reached ({} skipped)", scenario.getName(), FailFast.recordSkip());
+            throw new AssumptionViolatedException("Skipped: fail-fast threshold of "
+                    + FailFast.getMaxFailures() + " failed scenario(s) reached");
+        }
+    }
+
+    /**
+     * Acquire the resource locks requested by @lock:name tags before any browser
+     * is taken, so a waiting scenario holds nothing other scenarios need
+     * 
+     * @param scenario Cucumber scenario
+     */
+    @Before(order = 2)
+    public void acquireResourceLocks(Scenario scenario) {
+        resourceLocks = ResourceLocks.acquire(scenario.getSourceTagNames());
+    }
+
+    /**
+     * Release resource locks after everything else, including the driver quit
+     */
+    @After(order = 1)
+    public void releaseResourceLocks() {
+        ResourceLocks.release(resourceLocks);
+        resourceLocks = Collections.emptyList();
+    }
+
     /**
      * Before scenario hook
      * 
@@ -42,16 +128,124 @@ public class Hooks {
         logger.info("Starting scenario: {}", scenario.getName());
         logger.info("Tags: {}", scenario.getSourceTagNames());
         logger.info("========================================");
+        if (DriverManager.isMatrixScenario()) {
+            // Same scenario runs once per browser; the reports tell the runs apart by this line
+            scenario.log("Browser: " + DriverManager.getBrowser());
+        }
 
-        // Initialize driver
+        // Seed the feature's fixtures through the API while the browser starts
+        startFixtureSeeding(scenario);
+
+        // Initialize driver, replacing a pooled or pre-launched session that died while waiting
         DriverManager.initializeDriver();
-        WebDriver driver = DriverManager.getDriver();
+        DriverManager.ensureLiveDriver();
+        WebDriver driver = NavigationPlanner.plan(DriverManager.getDriver());
         context.setDriver(driver);
+        context.setScenarioTags(scenario.getSourceTagNames());
+        if (context.getFixtures() != null) {
+            // Pages must not load before the data they show exists
+            context.getFixtures().awaitAll();
+        }
 
-        // Navigate to base URL
+        if (restoreBackgroundCheckpoint(scenario, driver)) {
+            return;
+        }
+
+        // Navigate to base URL; with the navigation planner the page only loads if no step navigates first
         String baseUrl = configReader.getBaseUrl();
         logger.info("Navigating to base URL: {}", baseUrl);
-        driver.get(baseUrl);
+        AppReadiness.navigate(driver, baseUrl);
+    }
+
+    /**
+     * After step hook - when a step fails because the browser session is gone,
+     * flag the scenario as an infrastructure failure. No replacement browser is
+     * launched: the remaining steps are skipped and the session is discarded in @After.
+     * Also fails a scenario whose restored Background ran a step definition that
+     * does not honour the checkpoint
+     * 
+     * @param scenario Cucumber scenario
+     */
+    @AfterStep
+    public void afterStep(Scenario scenario) {
+        boolean unguardedRestoredStep = context.isUnguardedRestoredStep();
+        int completedSteps = context.completeStep();
+        if (scenario.isFailed() && !context.containsContext(INFRASTRUCTURE_FAILURE)
+                && DriverManager.isDriverLost()) {
+            context.setContext(INFRASTRUCTURE_FAILURE, true);
+            logger.error("{} in scenario '{}': browser session was lost",
+                    DriverSupervisor.INFRASTRUCTURE_FAILURE_MARKER, scenario.getName());
+            // Scenario durations recognise this line and keep the run out of the failure history
+            scenario.log(DriverSupervisor.INFRASTRUCTURE_FAILURE_MARKER + ": the browser session was lost during this "
+                    + "scenario. The failure was not caused by the application under test.");
+        }
+        if (unguardedRestoredStep && !scenario.isFailed()) {
+            throw new IllegalStateException("Background step " + completedSteps + " of " + scenario.getUri()
+                    + " ran after its checkpoint was restored: guard its step definition with"
+                    + " testContext.isRestoredBackgroundStep() or remove " + BackgroundCheckpoints.CHECKPOINT_TAG
+                    + " from the feature");
+        }
+        if (!scenario.isFailed() && !context.isBackgroundRestored()
+                && BackgroundCheckpoints.isEnabled(scenario.getSourceTagNames())
+                && completedSteps == BackgroundCheckpoints.getBackgroundStepCount(scenario.getUri())) {
+            BackgroundCheckpoints.save(scenario.getUri(), context.getLeasedAccounts(),
+                    context.getContextSnapshot(), context.getDriver());
+        }
+    }
+
+    /**
+     * Restore the Background's state from the feature's checkpoint (@checkpoint features)
+     * The accounts the Background would lease are leased here, since the checkpoint belongs to them
+     * 
+     * @param scenario Cucumber scenario
+     * @param driver   WebDriver instance
+     * @return true if the Background steps need not run
+     */
+    private boolean restoreBackgroundCheckpoint(Scenario scenario, WebDriver driver) {
+        if (!BackgroundCheckpoints.isEnabled(scenario.getSourceTagNames())) {
+            return false;
+        }
+        List<String> roles = BackgroundCheckpoints.getRoles(scenario.getUri());
+        if (roles == null) {
+            return false;
+        }
+        for (String role : roles) {
+            // The fixture owner may already be leased
+            if (context.getAccountLease(role) == null) {
+                context.addAccountLease(AccountPool.lease(role));
+            }
+        }
+        BackgroundCheckpoints.Checkpoint checkpoint =
+                BackgroundCheckpoints.find(scenario.getUri(), context.getLeasedAccounts());
+        if (checkpoint == null || !BackgroundCheckpoints.restore(checkpoint, driver)) {
+            logger.info("No usable Background checkpoint, replaying the Background");
+            return false;
+        }
+        checkpoint.getData().forEach(context::setContext);
+        int backgroundSteps = BackgroundCheckpoints.getBackgroundStepCount(scenario.getUri());
+        context.markBackgroundRestored(backgroundSteps);
+        logger.info("Background restored from checkpoint, skipping {} step(s)", backgroundSteps);
+        scenario.log("Background restored from checkpoint");
+        return true;
+    }
+
+    /**
+     * Start creating the fixtures the scenario's feature declares, as a leased account of the spec's role
+     * Login steps reuse that lease, so the scenario signs in as the account that owns the fixtures
+     * 
+     * @param scenario Cucumber scenario
+     */
+    private void startFixtureSeeding(Scenario scenario) {
+        if (!FixtureSeeder.isEnabled() || !FixtureSeeder.hasSpec(scenario.getUri())) {
+            return;
+        }
+        String role = FixtureSeeder.getOwnerRole(scenario.getUri());
+        AccountPool.Lease lease = context.getAccountLease(role);
+        if (lease == null) {
+            lease = AccountPool.lease(role);
+            context.addAccountLease(lease);
+        }
+        context.setFixtures(FixtureSeeder.seed(scenario.getUri(), scenario.getName(), lease.getAccount()));
     }
 
     /**
@@ -66,16 +260,49 @@ public class Hooks {
         logger.info("Status: {}", scenario.getStatus());
         logger.info("========================================");
 
-        // Take screenshot if scenario failed
-        if (scenario.isFailed()) {
+        // Take screenshot if scenario failed; a lost browser has nothing to capture and says nothing about the app
+        if (scenario.isFailed() && !context.containsContext(INFRASTRUCTURE_FAILURE)) {
             takeScreenshot(scenario);
+            FailFast.recordFailure(scenario.getName());
+        }
+
+        // Delete the scenario's own fixtures; feature fixtures are kept for the feature's other scenarios
+        if (context.getFixtures() != null) {
+            context.getFixtures().cleanup();
         }
 
         // Clear context
         context.clearContext();
+        ExtentReportManager.removeTest();
 
-        // Quit driver
-        DriverManager.quitDriver();
+        // Quit driver, then hand the scenario's accounts to the next scenario
+        NavigationPlanner.takeOver(context.getDriver());
+        try {
+            DriverManager.quitDriver();
+        } finally {
+            context.takeAccountLeases().forEach(AccountPool::release);
+        }
+    }
+
+    /**
+     * Log run-wide summaries once every scenario of this JVM has finished
+     * Done here rather than in JVM shutdown hooks, which race Log4j's own shutdown and lose their output
+     */
+    @AfterAll
+    public static void logRunSummary() {
+        DriverBinaryResolver.logSummary();
+        AccountPool.logMetrics();
+        NavigationPlanner.logMetrics();
+        DriverManager.logReaperMetrics();
+        OrphanProcessReaper.logSummary();
+    }
+
+    /**
+     * Delete the fixtures shared by the scenarios of a feature, once every scenario of this JVM has finished
+     */
+    @AfterAll
+    public static void cleanupFeatureFixtures() {
+        FixtureSeeder.cleanupFeatureFixtures();
     }
 
     /**
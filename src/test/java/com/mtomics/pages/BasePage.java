@@ -1,5 +1,6 @@
 package com.mtomics.pages;
 
+import com.mtomics.utils.AppReadiness;
 import com.mtomics.utils.WaitHelper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -157,12 +158,13 @@ public class BasePage {
 
     /**
      * Navigate to URL
+     * Returns once the app is usable when an EAGER/NONE page-load strategy is configured
      * 
      * @param url URL to navigate
      */
     protected void navigateTo(String url) {
         logger.info("Navigating to URL: {}", url);
-        driver.get(url);
+        AppReadiness.navigate(driver, url);
     }
 
     /**
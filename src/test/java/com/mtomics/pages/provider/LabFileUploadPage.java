@@ -183,6 +183,16 @@ public class LabFileUploadPage extends BasePage {
         }
     }
 
+    /**
+     * Open a lab results section
+     *
+     * @param url Lab results URL, for one client or for all of them
+     */
+    public void navigateToLabResults(String url) {
+        LogHelper.logStep("Opening lab results: " + url);
+        navigateTo(url);
+    }
+
     /**
      * Search and select client by name
      *
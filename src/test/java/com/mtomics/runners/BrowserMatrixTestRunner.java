@@ -0,0 +1,199 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ConfigReader;
+import com.mtomics.utils.DriverManager;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.PickleWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ITestContext;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BrowserMatrixTestRunner class runs every selected scenario once per browser
+ * of browser.matrix, all on one TestNG data provider thread pool. The copies
+ * of a scenario are scheduled next to each other so they run at the same
+ * time; each thread's browser comes from DriverManager, whose pools are
+ * shared per browser. Results per browser are summarised in the log and in
+ * target/cucumber-reports/browser-matrix.csv
+ */
+@CucumberOptions(
+    features = "src/test/resources/features",
+    glue = {
+        "com.mtomics.stepDefinitions",
+        "com.mtomics.hooks"
+    },
+    plugin = {
+        "summary",
+        "html:target/cucumber-reports/cucumber.html",
+        "json:target/cucumber-reports/cucumber.json",
+        "junit:target/cucumber-reports/cucumber.xml",
+        "com.aventstack.extentreports.cucumber.adapter.ExtentCucumberAdapter:"
+    },
+    monochrome = true,
+    dryRun = false,
+    tags = "@adminlogin"
+)
+public class BrowserMatrixTestRunner extends AbstractTestNGCucumberTests {
+
+    private static final Logger logger = LogManager.getLogger(BrowserMatrixTestRunner.class);
+    private static final Path MATRIX_REPORT = Paths.get("target", "cucumber-reports", "browser-matrix.csv");
+    private final List<Result> results = Collections.synchronizedList(new ArrayList<>());
+    private int threads = 1;
+
+    /**
+     * Outcome of one scenario on one browser
+     */
+    private static class Result {
+        final String key;
+        final String name;
+        final String browser;
+        final String status;
+        final long millis;
+
+        Result(String key, String name, String browser, String status, long millis) {
+            this.key = key;
+            this.name = name;
+            this.browser = browser;
+            this.status = status;
+            this.millis = millis;
+        }
+
+        String toCsv() {
+            return String.join(",", csv(key), csv(name), browser, status, String.valueOf(millis));
+        }
+    }
+
+    /**
+     * Remember the data provider thread count the scenarios are scheduled for
+     * 
+     * @param context TestNG context
+     */
+    @BeforeClass(alwaysRun = true)
+    public void captureThreadCount(ITestContext context) {
+        threads = context.getSuite().getXmlSuite().getDataProviderThreadCount();
+    }
+
+    /**
+     * Scenarios are not run once; see {@link #browserScenarios()}
+     * 
+     * @return No data
+     */
+    @Override
+    @DataProvider
+    public Object[][] scenarios() {
+        return new Object[0][];
+    }
+
+    /**
+     * One row per scenario and browser, scheduled like the parallel runner's scenarios
+     * 
+     * @return Scenario, feature and browser triples
+     */
+    @DataProvider(parallel = true)
+    public Object[][] browserScenarios() {
+        List<String> browsers = getBrowsers();
+        List<Object[]> rows = new ArrayList<>();
+        for (Object[] scenario : ChangeImpactAnalyzer.select(super.scenarios())) {
+            for (String browser : browsers) {
+                rows.add(new Object[]{scenario[0], scenario[1], browser});
+            }
+        }
+        logger.info("Browser matrix {}: {} run(s) on {} thread(s)", browsers, rows.size(), threads);
+        return ShardPlanner.schedule(rows.toArray(new Object[0][]), ScenarioDurations.load(), threads);
+    }
+
+    /**
+     * Run one scenario on one browser
+     * 
+     * @param pickleWrapper  Scenario
+     * @param featureWrapper Feature of the scenario
+     * @param browser        Browser to run it on
+     */
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios on each browser of the matrix",
+            dataProvider = "browserScenarios")
+    public void runScenarioOnBrowser(PickleWrapper pickleWrapper, FeatureWrapper featureWrapper, String browser) {
+        DriverManager.setBrowser(browser);
+        long start = System.currentTimeMillis();
+        String status = "FAILED";
+        try {
+            runScenario(pickleWrapper, featureWrapper);
+            status = "PASSED";
+        } catch (SkipException e) {
+            status = "SKIPPED";
+            throw e;
+        } finally {
+            DriverManager.setBrowser(null);
+            String key = ScenarioDurations.normalize(ShardPlanner.scenarioKey(new Object[]{pickleWrapper}));
+            results.add(new Result(key, pickleWrapper.getPickle().getName(), browser, status,
+                    System.currentTimeMillis() - start));
+        }
+    }
+
+    /**
+     * Log pass/fail counts per browser and write the per-browser result table
+     */
+    @AfterClass(alwaysRun = true)
+    public void reportByBrowser() {
+        Map<String, int[]> counts = new TreeMap<>();
+        List<String> lines = new ArrayList<>();
+        lines.add("scenario,name,browser,status,millis");
+        synchronized (results) {
+            for (Result result : results) {
+                int[] count = counts.computeIfAbsent(result.browser, b -> new int[3]);
+                count["PASSED".equals(result.status) ? 0 : "FAILED".equals(result.status) ? 1 : 2]++;
+                lines.add(result.toCsv());
+            }
+        }
+        counts.forEach((browser, count) -> logger.info("Browser matrix {}: {} passed, {} failed, {} skipped",
+                browser, count[0], count[1], count[2]));
+        try {
+            Files.createDirectories(MATRIX_REPORT.getParent());
+            Files.write(MATRIX_REPORT, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Failed to write {}: {}", MATRIX_REPORT, e.getMessage());
+        }
+    }
+
+    /**
+     * Learn scenario durations from this run's cucumber.json, written when the class finished
+     */
+    @AfterSuite(alwaysRun = true)
+    public void recordDurations() {
+        ScenarioDurations.recordRun();
+    }
+
+    private static List<String> getBrowsers() {
+        String matrix = new ConfigReader().getProperty("browser.matrix", "chrome,firefox,edge");
+        List<String> browsers = new ArrayList<>();
+        Arrays.stream(matrix.split(",")).map(String::trim).map(String::toLowerCase)
+                .filter(b -> !b.isEmpty() && !browsers.contains(b)).forEach(browsers::add);
+        if (browsers.isEmpty()) {
+            throw new IllegalStateException("browser.matrix lists no browsers");
+        }
+        return browsers;
+    }
+
+    private static String csv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
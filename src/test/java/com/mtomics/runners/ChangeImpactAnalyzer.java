@@ -0,0 +1,460 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ConfigReader;
+import io.cucumber.cucumberexpressions.ExpressionFactory;
+import io.cucumber.cucumberexpressions.ParameterType;
+import io.cucumber.cucumberexpressions.ParameterTypeRegistry;
+import io.cucumber.cucumberexpressions.UndefinedParameterTypeException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ChangeImpactAnalyzer class selects only the scenarios a change can affect.
+ * It statically builds a graph from feature steps to the step-definition
+ * methods they match, to the page objects and utils those methods use
+ * (transitively), and maps the files changed since impact.base.ref onto it.
+ * Changes to shared infrastructure (hooks, runners, context and everything
+ * they use) or to non-Java files select the whole run
+ */
+public class ChangeImpactAnalyzer {
+
+    private static final Logger logger = LogManager.getLogger(ChangeImpactAnalyzer.class);
+    private static final String SOURCE_ROOT = "src/test/java";
+    private static final String FEATURES_DIR = "src/test/resources/features";
+    private static final Path SELECTION_FILE = Paths.get("target", "impact-selection.txt");
+    private static final Set<String> GLOBAL_PACKAGES = Set.of("hooks", "context", "runners", "shards");
+    private static final Pattern STEP_ANNOTATION = Pattern.compile(
+            "@(?:Given|When|Then|And|But)\\(\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern CLASS_NAME = Pattern.compile("\\b[A-Z]\\w*\\b");
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b[a-z]\\w*\\b");
+    private static final Pattern FIELD_DECLARATION = Pattern.compile("\\b([A-Z]\\w*)(?:<[^>;]*>)?\\s+(\\w+)\\s*[;=]");
+    private static final Pattern STEP_LINE = Pattern.compile("^\\s*(?:Given|When|Then|And|But|\\*)\\s+(.*)$");
+
+    /**
+     * A step-definition method with the classes it depends on
+     */
+    private static class StepDefinition {
+        final Pattern pattern;
+        final String owner;
+        final Set<String> dependencies;
+
+        StepDefinition(Pattern pattern, String owner, Set<String> dependencies) {
+            this.pattern = pattern;
+            this.owner = owner;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final Map<String, String> sources = new HashMap<>();
+    private final Map<String, String> packages = new HashMap<>();
+    private final Map<String, Set<String>> closures = new HashMap<>();
+    private final List<StepDefinition> stepDefinitions = new ArrayList<>();
+    private final ParameterTypeRegistry parameterTypes = new ParameterTypeRegistry(Locale.ENGLISH);
+    private final ExpressionFactory expressionFactory = new ExpressionFactory(parameterTypes);
+
+    /**
+     * Check if change-impact selection is enabled
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return new ConfigReader().getBooleanProperty("impact.selection.enabled", false);
+    }
+
+    /**
+     * Keep only the scenarios affected by the current change
+     * The selection is also written to target/impact-selection.txt in Cucumber's
+     * rerun format, e.g. for -Dcucumber.features=@target/impact-selection.txt
+     *
+     * @param scenarios Scenarios selected by tags
+     * @return Affected scenarios, or all of them when selection is disabled or impossible
+     */
+    public static Object[][] select(Object[][] scenarios) {
+        if (!isEnabled()) {
+            return scenarios;
+        }
+        try {
+            Set<String> changedFiles = changedFiles(new ConfigReader().getProperty("impact.base.ref", "origin/main"));
+            if (changedFiles == null) {
+                logger.warn("Change impact: git diff unavailable, running all {} scenario(s)", scenarios.length);
+                return scenarios;
+            }
+            ChangeImpactAnalyzer analyzer = new ChangeImpactAnalyzer();
+            analyzer.load();
+            Set<String> affected = analyzer.affectedScenarios(changedFiles);
+            Object[][] selected = affected == null ? scenarios : Arrays.stream(scenarios)
+                    .filter(s -> affected.contains(ScenarioDurations.normalize(ShardPlanner.scenarioKey(s))))
+                    .toArray(Object[][]::new);
+            logger.info("Change impact: {} of {} scenario(s) selected for {} changed file(s)",
+                    selected.length, scenarios.length, changedFiles.size());
+            writeSelection(selected);
+            return selected;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Change impact analysis failed, running all scenarios: {}", e.getMessage());
+            return scenarios;
+        }
+    }
+
+    /**
+     * Map changed files to the scenario keys they affect
+     *
+     * @param changedFiles Repository-relative paths
+     * @return Affected scenario keys (features/...:line), or null when everything is affected
+     * @throws IOException if feature files cannot be read
+     */
+    Set<String> affectedScenarios(Set<String> changedFiles) throws IOException {
+        Pattern ignored = Pattern.compile(new ConfigReader().getProperty("impact.ignore.pattern", "(^|/)[^/]*\\.md$"));
+        Set<String> globalClasses = globalClasses();
+        Set<String> changedClasses = new HashSet<>();
+        Set<String> changedFeatures = new HashSet<>();
+        for (String file : changedFiles) {
+            if (ignored.matcher(file).find()) {
+                continue;
+            }
+            if (file.endsWith(".feature")) {
+                changedFeatures.add(ScenarioDurations.normalize(file));
+            } else if (file.endsWith(".java") && file.contains(SOURCE_ROOT + "/")) {
+                String className = Paths.get(file).getFileName().toString().replace(".java", "");
+                if (globalClasses.contains(className)) {
+                    logger.info("Change impact: {} is shared infrastructure, everything is affected", file);
+                    return null;
+                }
+                changedClasses.add(className);
+            } else {
+                logger.info("Change impact: {} is not traceable, everything is affected", file);
+                return null;
+            }
+        }
+
+        List<StepDefinition> affectedSteps = stepDefinitions.stream()
+                .filter(step -> changedClasses.contains(step.owner)
+                        || step.dependencies.stream().anyMatch(changedClasses::contains))
+                .collect(Collectors.toList());
+        Set<String> affected = new LinkedHashSet<>();
+        for (Map.Entry<String, List<String>> scenario : parseScenarios().entrySet()) {
+            String key = scenario.getKey();
+            boolean featureChanged = changedFeatures.contains(key.substring(0, key.lastIndexOf(':')));
+            if (featureChanged || scenario.getValue().stream().anyMatch(text -> affectedSteps.stream()
+                    .anyMatch(step -> step.pattern.matcher(text).matches()))) {
+                affected.add(key);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Read every class below src/test/java and every step definition
+     *
+     * @throws IOException if sources cannot be read
+     */
+    void load() throws IOException {
+        try (Stream<Path> files = Files.walk(Paths.get(SOURCE_ROOT))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".java")).collect(Collectors.toList())) {
+                String className = file.getFileName().toString().replace(".java", "");
+                sources.put(className, stripComments(Files.readString(file, StandardCharsets.UTF_8)));
+                packages.put(className, file.getParent().getFileName().toString());
+            }
+        }
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Matcher annotation = STEP_ANNOTATION.matcher(source.getValue());
+            Map<String, String> fieldTypes = fieldTypes(source.getValue());
+            while (annotation.find()) {
+                String body = methodBody(source.getValue(), annotation.end());
+                Set<String> uses = new HashSet<>(knownClasses(body));
+                Matcher identifier = IDENTIFIER.matcher(body);
+                while (identifier.find()) {
+                    String type = fieldTypes.get(identifier.group());
+                    if (type != null && sources.containsKey(type)) {
+                        uses.add(type);
+                    }
+                }
+                Set<String> dependencies = new HashSet<>();
+                uses.remove(source.getKey());
+                uses.forEach(type -> dependencies.addAll(closure(type)));
+                String expression = annotation.group(1).replace("\\\"", "\"").replace("\\\\", "\\");
+                stepDefinitions.add(new StepDefinition(toPattern(expression), source.getKey(), dependencies));
+            }
+        }
+        logger.debug("Change impact: {} classes, {} step definitions", sources.size(), stepDefinitions.size());
+    }
+
+    /**
+     * Classes whose change affects every scenario: hooks, context, runners and shard runners, and all they use
+     */
+    private Set<String> globalClasses() {
+        Set<String> global = new HashSet<>();
+        packages.forEach((className, pkg) -> {
+            if (GLOBAL_PACKAGES.contains(pkg)) {
+                global.addAll(closure(className));
+            }
+        });
+        return global;
+    }
+
+    /**
+     * Get a class and every project class it references, directly or transitively
+     *
+     * @param className Simple class name
+     * @return Dependency closure, including the class itself
+     */
+    private Set<String> closure(String className) {
+        Set<String> known = closures.get(className);
+        if (known != null) {
+            return known;
+        }
+        Set<String> visited = new HashSet<>();
+        List<String> pending = new ArrayList<>(List.of(className));
+        while (!pending.isEmpty()) {
+            String current = pending.remove(pending.size() - 1);
+            if (visited.add(current) && sources.containsKey(current)) {
+                pending.addAll(knownClasses(sources.get(current)));
+            }
+        }
+        closures.put(className, visited);
+        return visited;
+    }
+
+    private Set<String> knownClasses(String code) {
+        Set<String> found = new HashSet<>();
+        Matcher matcher = CLASS_NAME.matcher(code);
+        while (matcher.find()) {
+            if (sources.containsKey(matcher.group())) {
+                found.add(matcher.group());
+            }
+        }
+        return found;
+    }
+
+    private static Map<String, String> fieldTypes(String source) {
+        Map<String, String> types = new HashMap<>();
+        Matcher matcher = FIELD_DECLARATION.matcher(source);
+        while (matcher.find()) {
+            types.putIfAbsent(matcher.group(2), matcher.group(1));
+        }
+        return types;
+    }
+
+    /**
+     * Get the body of the method following an annotation, by brace matching
+     */
+    private static String methodBody(String source, int from) {
+        int start = source.indexOf('{', from);
+        if (start < 0) {
+            return "";
+        }
+        int depth = 0;
+        boolean inString = false;
+        for (int i = start; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '"' && source.charAt(i - 1) != '\\') {
+                inString = !inString;
+            } else if (!inString && c == '{') {
+                depth++;
+            } else if (!inString && c == '}' && --depth == 0) {
+                return source.substring(start, i + 1);
+            }
+        }
+        return source.substring(start);
+    }
+
+    private static String stripComments(String source) {
+        return source.replaceAll("(?s)/\\*.*?\\*/", " ").replaceAll("(?m)^\\s*//.*$", " ");
+    }
+
+    /**
+     * Convert a Cucumber expression (or a ^...$ regular expression) to a Pattern, the way Cucumber does
+     * Custom parameter types are only known at runtime, so they match any text here
+     *
+     * @param expression Step-definition expression
+     * @return Pattern matching the full step text
+     */
+    Pattern toPattern(String expression) {
+        while (true) {
+            try {
+                return expressionFactory.createExpression(expression).getRegexp();
+            } catch (UndefinedParameterTypeException e) {
+                parameterTypes.defineParameterType(new ParameterType<>(e.getUndefinedParameterTypeName(), ".*",
+                        String.class, (String text) -> text));
+            }
+        }
+    }
+
+    /**
+     * Parse every feature file into scenario keys and their step texts (background included).
+     * Scenario outlines yield one key per example row, with the row's values filled in
+     *
+     * @return Step texts by scenario key (features/...:line)
+     * @throws IOException if a feature file cannot be read
+     */
+    static Map<String, List<String>> parseScenarios() throws IOException {
+        Map<String, List<String>> scenarios = new LinkedHashMap<>();
+        List<Path> featureFiles;
+        try (Stream<Path> files = Files.walk(Paths.get(FEATURES_DIR))) {
+            featureFiles = files.filter(f -> f.toString().endsWith(".feature")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : featureFiles) {
+            String feature = ScenarioDurations.normalize(file.toString().replace('\\', '/'));
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            List<String> background = new ArrayList<>();
+            List<String> current = background;
+            List<String> header = null;
+            boolean outline = false;
+            boolean inExamples = false;
+            boolean inDocString = false;
+            for (int n = 0; n < lines.size(); n++) {
+                String line = lines.get(n).trim();
+                if (line.startsWith("\"\"\"") || line.startsWith("```")) {
+                    inDocString = !inDocString;
+                    continue;
+                }
+                if (inDocString || line.isEmpty() || line.startsWith("#") || line.startsWith("@")) {
+                    continue;
+                }
+                if (line.startsWith("Background:")) {
+                    current = background;
+                } else if (line.startsWith("Scenario Outline:") || line.startsWith("Scenario Template:")) {
+                    current = new ArrayList<>(background);
+                    outline = true;
+                    inExamples = false;
+                    header = null;
+                } else if (line.startsWith("Scenario:") || line.startsWith("Example:")) {
+                    current = new ArrayList<>(background);
+                    scenarios.put(feature + ":" + (n + 1), current);
+                    outline = false;
+                    inExamples = false;
+                } else if (line.startsWith("Examples:") || line.startsWith("Scenarios:")) {
+                    inExamples = outline;
+                    header = null;
+                } else if (line.startsWith("|") && inExamples) {
+                    List<String> cells = tableCells(line);
+                    if (header == null) {
+                        header = cells;
+                    } else {
+                        Map<String, String> values = new TreeMap<>();
+                        for (int c = 0; c < header.size() && c < cells.size(); c++) {
+                            values.put("<" + header.get(c) + ">", cells.get(c));
+                        }
+                        List<String> steps = new ArrayList<>();
+                        for (String step : current) {
+                            for (Map.Entry<String, String> value : values.entrySet()) {
+                                step = step.replace(value.getKey(), value.getValue());
+                            }
+                            steps.add(step);
+                        }
+                        scenarios.put(feature + ":" + (n + 1), steps);
+                    }
+                } else {
+                    Matcher step = STEP_LINE.matcher(line);
+                    if (step.matches() && !inExamples) {
+                        current.add(step.group(1).trim());
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    private static List<String> tableCells(String row) {
+        String inner = row.substring(1, row.lastIndexOf('|') > 0 ? row.lastIndexOf('|') : row.length());
+        return Arrays.stream(inner.split("\\|", -1)).map(String::trim).collect(Collectors.toList());
+    }
+
+    /**
+     * Collect files changed since the base ref, plus uncommitted and untracked files
+     *
+     * @param baseRef Git ref to compare with, blank for local changes only
+     * @return Repository-relative paths, or null if git is not usable
+     */
+    private static Set<String> changedFiles(String baseRef) {
+        Set<String> changed = new LinkedHashSet<>();
+        if (!baseRef.isBlank()) {
+            List<String> committed = git("diff", "--name-only", baseRef + "...HEAD");
+            if (committed == null) {
+                logger.warn("Change impact: base ref '{}' not found, using local changes only", baseRef);
+            } else {
+                changed.addAll(committed);
+            }
+        }
+        List<String> local = git("diff", "--name-only", "HEAD");
+        List<String> untracked = git("ls-files", "--others", "--exclude-standard");
+        if (local == null || untracked == null) {
+            return null;
+        }
+        changed.addAll(local);
+        changed.addAll(untracked);
+        changed.removeIf(String::isBlank);
+        return changed;
+    }
+
+    private static List<String> git(String... args) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(false).start();
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line.trim());
+                }
+            }
+            if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                process.destroyForcibly();
+                return null;
+            }
+            return lines;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Write the selection as a Cucumber rerun file (path:line:line per feature)
+     */
+    private static void writeSelection(Object[][] selected) throws IOException {
+        Map<String, List<String>> lines = new TreeMap<>();
+        for (Object[] scenario : selected) {
+            String key = ScenarioDurations.normalize(ShardPlanner.scenarioKey(scenario));
+            int colon = key.lastIndexOf(':');
+            lines.computeIfAbsent("src/test/resources/" + key.substring(0, colon), f -> new ArrayList<>())
+                    .add(key.substring(colon + 1));
+        }
+        Files.createDirectories(SELECTION_FILE.getParent());
+        // Sharded forks all write the same selection, so replace the file atomically
+        Path temp = Files.createTempFile(SELECTION_FILE.toAbsolutePath().getParent(), "impact-selection", ".tmp");
+        Files.write(temp, lines.entrySet().stream()
+                .map(e -> e.getKey() + ":" + String.join(":", e.getValue()))
+                .collect(Collectors.toList()), StandardCharsets.UTF_8);
+        Files.move(temp, SELECTION_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
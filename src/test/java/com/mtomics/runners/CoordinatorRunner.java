@@ -0,0 +1,166 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ConfigReader;
+import com.mtomics.utils.FailFast;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CoordinatorRunner class is the entry point of a distributed run: it builds the
+ * scenario queue and serves it to WorkerRunner JVMs through a WorkQueueCoordinator.
+ * With coordinator.local.workers=N it also starts N worker JVMs on this machine,
+ * otherwise it waits for workers started elsewhere
+ */
+@CucumberOptions(
+    features = "src/test/resources/features",
+    glue = {
+        "com.mtomics.stepDefinitions",
+        "com.mtomics.hooks"
+    },
+    plugin = {
+        "summary"
+    },
+    monochrome = true,
+    dryRun = false,
+    tags = "@adminlogin"
+)
+public class CoordinatorRunner extends AbstractTestNGCucumberTests {
+
+    private static final Logger logger = LogManager.getLogger(CoordinatorRunner.class);
+    // System properties that describe this JVM rather than the run, never handed to local workers
+    private static final Set<String> JVM_PROPERTY_PREFIXES = Set.of("java.", "jdk.", "sun.", "os.", "user.",
+            "file.", "line.", "path.", "surefire.", "native.", "stdout.", "stderr.", "awt.", "basedir", "localRepository");
+
+    private final ConfigReader configReader = new ConfigReader();
+
+    /**
+     * Scenarios are run by the workers, not by this JVM
+     * 
+     * @return No data
+     */
+    @Override
+    @DataProvider
+    public Object[][] scenarios() {
+        return new Object[0][];
+    }
+
+    /**
+     * Serve every scenario to the workers and fail if any of them failed
+     * 
+     * @throws Exception if the coordinator cannot start or is interrupted
+     */
+    @Test(description = "Distributes Cucumber scenarios to worker JVMs")
+    public void distributeScenarios() throws Exception {
+        List<String> keys = new ArrayList<>();
+        Object[][] selected = ChangeImpactAnalyzer.select(super.scenarios());
+        for (Object[] scenario : ShardPlanner.schedule(selected, ScenarioDurations.load(), 1)) {
+            keys.add(ScenarioDurations.normalize(ShardPlanner.scenarioKey(scenario)));
+        }
+        List<Process> localWorkers = new ArrayList<>();
+        try (WorkQueueCoordinator coordinator = new WorkQueueCoordinator(
+                configReader.getIntProperty("coordinator.port", 7070),
+                keys,
+                configReader.getLongProperty("coordinator.worker.timeout.seconds", 120) * 1000,
+                configReader.getIntProperty("coordinator.max.attempts", 2),
+                FailFast.getMaxFailures())) {
+            coordinator.start();
+            int workerCount = configReader.getIntProperty("coordinator.local.workers", 0);
+            for (int i = 1; i <= workerCount; i++) {
+                localWorkers.add(startLocalWorker(i, coordinator.getPort()));
+            }
+            long timeout = configReader.getLongProperty("coordinator.run.timeout.minutes", 120) * 60 * 1000;
+            boolean finished = coordinator.awaitCompletion(timeout);
+            coordinator.logSummary();
+            if (!finished) {
+                throw new AssertionError("Distributed run timed out with " + coordinator.getFinishedCount()
+                        + " of " + keys.size() + " scenario(s) finished");
+            }
+            if (!coordinator.getFailures().isEmpty()) {
+                throw new AssertionError(coordinator.getFailures().size() + " scenario(s) failed:\n"
+                        + String.join("\n", coordinator.getFailures()));
+            }
+        } finally {
+            stopLocalWorkers(localWorkers);
+        }
+    }
+
+    /**
+     * Learn scenario durations from the reports the local workers wrote
+     */
+    @AfterSuite(alwaysRun = true)
+    public void recordDurations() {
+        ScenarioDurations.recordRun();
+    }
+
+    /**
+     * Start a worker JVM on this machine with the same classpath and run settings
+     * 
+     * @param index Worker number
+     * @param port  Coordinator port
+     * @return Worker process
+     * @throws IOException if the process cannot be started
+     */
+    private Process startLocalWorker(int index, int port) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for (Map.Entry<Object, Object> property : System.getProperties().entrySet()) {
+            String key = property.getKey().toString();
+            if (JVM_PROPERTY_PREFIXES.stream().noneMatch(key::startsWith) && !key.startsWith("coordinator.")
+                    && !key.startsWith("worker.")) {
+                command.add("-D" + key + "=" + property.getValue());
+            }
+        }
+        command.add("-Dcoordinator.host=localhost");
+        command.add("-Dcoordinator.port=" + port);
+        command.add("-Dworker.id=local-" + index);
+        command.add("org.testng.TestNG");
+        command.add("-d");
+        command.add("target/worker-output/local-" + index);
+        command.add("-testclass");
+        command.add(WorkerRunner.class.getName());
+
+        Path log = Paths.get("target", "worker-logs", "worker-local-" + index + ".log");
+        Files.createDirectories(log.getParent());
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .directory(new File(System.getProperty("user.dir")))
+                .start();
+        logger.info("Started local worker {} (PID {}), log: {}", index, process.pid(), log);
+        return process;
+    }
+
+    private void stopLocalWorkers(List<Process> workers) {
+        for (Process worker : workers) {
+            try {
+                // Workers exit by themselves on DONE; anything left is stuck
+                if (!worker.waitFor(30, TimeUnit.SECONDS)) {
+                    logger.warn("Local worker {} did not exit, killing it", worker.pid());
+                    worker.descendants().forEach(ProcessHandle::destroyForcibly);
+                    worker.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                worker.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * FailFirstOrdering class scores scenarios by how likely they are to fail per
+ * second of run time, so a broken build reports its first failure within
+ * minutes. The failure probability combines the scenario's recent failure
+ * rate with how recently its feature file changed (git history, plus
+ * uncommitted edits); dividing by the expected duration puts cheap,
+ * likely-failing scenarios first
+ */
+public class FailFirstOrdering {
+
+    private static final Logger logger = LogManager.getLogger(FailFirstOrdering.class);
+    private static final String FEATURES_DIR = "src/test/resources/features";
+    private static final double BASE_FAILURE_PROBABILITY = 0.01;
+
+    private final ScenarioDurations durations;
+    private final Map<String, Long> featureChangedAt;
+    private final double recentChangeWeight;
+    private final double recentChangeDays;
+
+    /**
+     * Constructor
+     *
+     * @param durations Duration and failure-rate history
+     */
+    public FailFirstOrdering(ScenarioDurations durations) {
+        ConfigReader configReader = new ConfigReader();
+        this.durations = durations;
+        this.recentChangeWeight = configReader.getIntProperty("scenario.order.recent.change.percent", 30) / 100.0;
+        this.recentChangeDays = Math.max(0.1, configReader.getIntProperty("scenario.order.recent.change.days", 3));
+        this.featureChangedAt = featureChangeTimes();
+    }
+
+    /**
+     * Check if scenarios are ordered most-likely-to-fail first
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return "fail-first".equalsIgnoreCase(new ConfigReader().getProperty("scenario.order", "duration").trim());
+    }
+
+    /**
+     * Get the probability that a scenario fails in this run
+     *
+     * @param scenarioKey Scenario key
+     * @return Probability between 0 and 1
+     */
+    public double failureProbability(String scenarioKey) {
+        String key = ScenarioDurations.normalize(scenarioKey);
+        Long changedAt = featureChangedAt.get(key.substring(0, key.lastIndexOf(':')));
+        double ageDays = changedAt == null ? Double.MAX_VALUE
+                : (System.currentTimeMillis() - changedAt) / (double) TimeUnit.DAYS.toMillis(1);
+        // Decays from the full weight for a file changed just now
+        double recentChange = recentChangeWeight * Math.exp(-Math.max(0, ageDays) / recentChangeDays);
+        double history = Math.max(BASE_FAILURE_PROBABILITY, durations.failureRate(key));
+        return 1 - (1 - history) * (1 - recentChange);
+    }
+
+    /**
+     * Get the scheduling priority of a scenario: failure probability per expected second
+     *
+     * @param scenarioKey Scenario key
+     * @return Priority, higher runs earlier
+     */
+    public double priority(String scenarioKey) {
+        return failureProbability(scenarioKey) / Math.max(1, durations.estimate(scenarioKey));
+    }
+
+    /**
+     * Find when each feature file last changed: newest commit touching it, or now if it has local edits
+     *
+     * @return Change time in epoch millis by path below features/, e.g. features/admin/admin_login.feature
+     */
+    private static Map<String, Long> featureChangeTimes() {
+        Map<String, Long> changedAt = new HashMap<>();
+        long commitMillis = 0;
+        // Newest commits come first, so the first time a file shows up is its last change
+        for (String line : git("log", "--format=@%ct", "--name-only", "--", FEATURES_DIR)) {
+            if (line.startsWith("@")) {
+                commitMillis = Long.parseLong(line.substring(1).trim()) * 1000;
+            } else if (!line.isBlank()) {
+                changedAt.putIfAbsent(ScenarioDurations.normalize(line.trim()), commitMillis);
+            }
+        }
+        for (String line : git("status", "--porcelain", "--", FEATURES_DIR)) {
+            if (line.length() > 3) {
+                changedAt.put(ScenarioDurations.normalize(line.substring(3).trim()), System.currentTimeMillis());
+            }
+        }
+        if (changedAt.isEmpty()) {
+            // No git (e.g. a source export): fall back to file modification times
+            try (Stream<Path> files = Files.walk(Paths.get(FEATURES_DIR))) {
+                files.filter(Files::isRegularFile).forEach(file -> {
+                    try {
+                        changedAt.put(ScenarioDurations.normalize(file.toString().replace('\\', '/')),
+                                Files.getLastModifiedTime(file).toMillis());
+                    } catch (IOException e) {
+                        logger.debug("No modification time for {}: {}", file, e.getMessage());
+                    }
+                });
+            } catch (IOException e) {
+                logger.debug("Feature files not readable: {}", e.getMessage());
+            }
+        }
+        return changedAt;
+    }
+
+    private static List<String> git(String... args) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        List<String> lines = new ArrayList<>();
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            if (!process.waitFor(30, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                process.destroyForcibly();
+                return List.of();
+            }
+        } catch (IOException e) {
+            logger.debug("git not available: {}", e.getMessage());
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mtomics.runners;
+
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+
+/**
+ * ParallelTestRunner class executes Cucumber scenarios in parallel on TestNG
+ * Thread count comes from the dataproviderthreadcount property (see the
+ * "parallel" Maven profile); each thread gets its own WebDriver via DriverManager
+ */
+@CucumberOptions(
+    features = "src/test/resources/features",
+    glue = {
+        "com.mtomics.stepDefinitions",
+        "com.mtomics.hooks"
+    },
+    plugin = {
+        "summary",
+        "html:target/cucumber-reports/cucumber.html",
+        "json:target/cucumber-reports/cucumber.json",
+        "junit:target/cucumber-reports/cucumber.xml",
+        "com.aventstack.extentreports.cucumber.adapter.ExtentCucumberAdapter:"
+    },
+    monochrome = true,
+    dryRun = false,
+    tags = "@adminlogin"
+)
+public class ParallelTestRunner extends AbstractTestNGCucumberTests {
+
+    private int threads = 1;
+
+    /**
+     * Remember the data provider thread count the scenarios are scheduled for
+     * 
+     * @param context TestNG context
+     */
+    @BeforeClass(alwaysRun = true)
+    public void captureThreadCount(ITestContext context) {
+        threads = context.getSuite().getXmlSuite().getDataProviderThreadCount();
+    }
+
+    /**
+     * Scenarios as TestNG data, handed out to the data provider thread pool
+     * Ordered so long scenarios start first and scenarios sharing a resource lock do not pile up
+     * Narrowed to the scenarios affected by the current change when impact.selection.enabled is set
+     * 
+     * @return Scenario and feature pairs
+     */
+    @Override
+    @DataProvider(parallel = true)
+    public Object[][] scenarios() {
+        return ShardPlanner.schedule(ChangeImpactAnalyzer.select(super.scenarios()), ScenarioDurations.load(), threads);
+    }
+
+    /**
+     * Learn scenario durations from this run's cucumber.json, written when the class finished
+     */
+    @AfterSuite(alwaysRun = true)
+    public void recordDurations() {
+        ScenarioDurations.recordRun();
+    }
+}
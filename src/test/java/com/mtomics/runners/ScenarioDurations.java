@@ -0,0 +1,346 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ConfigReader;
+import com.mtomics.utils.DriverSupervisor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ScenarioDurations class keeps per-scenario duration and failure-rate
+ * estimates learned from the cucumber.json reports of earlier runs. Each
+ * observation is folded into an exponential moving average, so estimates
+ * follow the app as it changes. The store lives outside target/ so it
+ * survives mvn clean. Planning only reads the store; reports are folded in
+ * by {@link #recordRun()} once a runner has finished
+ */
+public class ScenarioDurations {
+
+    private static final Logger logger = LogManager.getLogger(ScenarioDurations.class);
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final String DEFAULT_STORE_FILE = System.getProperty("user.home")
+            + "/.cache/mtomics-automation/scenario-durations.properties";
+    private static final String REPORTS_DIR = "target/cucumber-reports";
+    private static final String SNAPSHOT_DIR = "target/shard-plan";
+    private static final String DURATION_PREFIX = "duration.";
+    private static final String FAILURE_PREFIX = "failure.";
+    private static final String INGESTED_PREFIX = "ingested.";
+    private static final double DEFAULT_SECONDS = 30;
+
+    private final Properties store;
+    private final double fallbackSeconds;
+
+    private ScenarioDurations(Properties store) {
+        this.store = store;
+        this.fallbackSeconds = store.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(DURATION_PREFIX))
+                .mapToDouble(key -> parse(store.getProperty(key)))
+                .filter(seconds -> seconds > 0)
+                .average()
+                .orElse(configReader.getIntProperty("scenario.duration.default.seconds", (int) DEFAULT_SECONDS));
+    }
+
+    /**
+     * Load the estimates as they are now, without changing the store
+     *
+     * @return ScenarioDurations
+     */
+    public static ScenarioDurations load() {
+        return new ScenarioDurations(read(storeFile()));
+    }
+
+    /**
+     * Load the estimates frozen for one run, so every JVM of the run plans from the same data
+     * The first JVM to ask copies the store to target/shard-plan; the others read that copy,
+     * even if a JVM that finished early has recorded its results in the store since
+     *
+     * @param runId Identifier shared by all JVMs of the run
+     * @return ScenarioDurations
+     */
+    public static synchronized ScenarioDurations loadSnapshot(String runId) {
+        Path snapshot = Paths.get(SNAPSHOT_DIR, "durations-" + runId + ".properties");
+        try {
+            Files.createDirectories(snapshot.getParent());
+            try (FileChannel channel = FileChannel.open(Paths.get(SNAPSHOT_DIR, ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                if (!Files.exists(snapshot)) {
+                    write(snapshot, read(storeFile()));
+                    logger.info("Froze duration estimates for run {} in {}", runId, snapshot);
+                }
+                return new ScenarioDurations(read(snapshot));
+            }
+        } catch (IOException e) {
+            // Planning from a store other JVMs may update could give overlapping shards
+            throw new IllegalStateException("Failed to snapshot scenario durations for run " + runId, e);
+        }
+    }
+
+    /**
+     * Fold the reports written by this run (and any earlier report not seen yet) into the estimates
+     */
+    public static void recordRun() {
+        ingestReports();
+    }
+
+    /**
+     * Get the expected duration of a scenario
+     * Scenarios without history are expected to take as long as the average known scenario
+     *
+     * @param scenarioKey Scenario key, see {@link ShardPlanner#scenarioKey(Object[])}
+     * @return Expected duration in seconds
+     */
+    public double estimate(String scenarioKey) {
+        String value = store.getProperty(DURATION_PREFIX + normalize(scenarioKey));
+        double seconds = value != null ? parse(value) : -1;
+        return seconds > 0 ? seconds : fallbackSeconds;
+    }
+
+    /**
+     * Get the recent failure rate of a scenario
+     *
+     * @param scenarioKey Scenario key, see {@link ShardPlanner#scenarioKey(Object[])}
+     * @return Failure rate between 0 and 1, 0 for scenarios without history
+     */
+    public double failureRate(String scenarioKey) {
+        String value = store.getProperty(FAILURE_PREFIX + normalize(scenarioKey));
+        double rate = value != null ? parse(value) : 0;
+        return Math.max(0, Math.min(1, rate));
+    }
+
+    /**
+     * Reduce a scenario key to the path below the features directory, so the
+     * classpath:, file: and relative URIs used by pickles and reports all match
+     *
+     * @param scenarioKey Feature URI and line
+     * @return Normalized key, e.g. features/admin/admin_login.feature:11
+     */
+    public static String normalize(String scenarioKey) {
+        int features = scenarioKey.lastIndexOf("features/");
+        return features >= 0 ? scenarioKey.substring(features) : scenarioKey;
+    }
+
+    /**
+     * Read the store and fold in every cucumber.json under target/cucumber-reports
+     * that is newer than when it was last ingested, holding a file lock so shard
+     * forks finishing together do not lose each other's updates
+     */
+    private static synchronized void ingestReports() {
+        Path file = storeFile();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(Paths.get(file + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Properties store = read(file);
+                int observed = 0;
+                for (Path report : findReports()) {
+                    observed += ingest(store, report);
+                }
+                if (observed > 0) {
+                    write(file, store);
+                    logger.info("Updated duration estimates from {} scenario result(s)", observed);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to update scenario duration history: {}", e.getMessage());
+        }
+    }
+
+    private static List<Path> findReports() throws IOException {
+        Path dir = Paths.get(REPORTS_DIR);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(path -> path.getFileName().toString().equals("cucumber.json"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Fold one cucumber.json report into the store
+     *
+     * @param store  Duration store
+     * @param report Report file
+     * @return Number of scenario results folded in
+     */
+    @SuppressWarnings("unchecked")
+    private static int ingest(Properties store, Path report) throws IOException {
+        String marker = INGESTED_PREFIX + report.toAbsolutePath().normalize();
+        long modified = Files.getLastModifiedTime(report).toMillis();
+        if (String.valueOf(modified).equals(store.getProperty(marker))) {
+            return 0;
+        }
+        List<Map<String, Object>> features;
+        try {
+            features = new Json().toType(Files.readString(report, StandardCharsets.UTF_8), List.class);
+        } catch (JsonException e) {
+            // Still being written by another fork; picked up next time
+            logger.debug("Skipping unreadable report {}: {}", report, e.getMessage());
+            return 0;
+        }
+        double smoothing = Math.min(1, Math.max(0.01,
+                parse(configReader.getProperty("scenario.duration.smoothing", "0.3"))));
+        int observed = 0;
+        for (Map<String, Object> feature : features == null ? List.<Map<String, Object>>of() : features) {
+            long backgroundNanos = 0;
+            String backgroundStatus = "passed";
+            boolean backgroundBrowserLost = false;
+            for (Map<String, Object> element : (List<Map<String, Object>>) feature.getOrDefault("elements", List.of())) {
+                long nanos = elementNanos(element);
+                String status = elementStatus(element);
+                if ("background".equals(element.get("type"))) {
+                    // The JSON report lists a scenario's background as a separate element right before it
+                    backgroundNanos = nanos;
+                    backgroundStatus = status;
+                    backgroundBrowserLost = "failed".equals(status) && isInfrastructureFailure(element);
+                    continue;
+                }
+                double seconds = (nanos + backgroundNanos) / 1e9;
+                boolean failed = "failed".equals(status) || "failed".equals(backgroundStatus);
+                boolean skipped = !failed && ("skipped".equals(status) || "skipped".equals(backgroundStatus));
+                boolean browserLost = backgroundBrowserLost || (failed && isInfrastructureFailure(element));
+                backgroundNanos = 0;
+                backgroundStatus = "passed";
+                backgroundBrowserLost = false;
+                // Skipped scenarios (fail-fast, assumptions) and lost browsers say nothing about duration or failure rate
+                if (seconds <= 0 || skipped || browserLost) {
+                    continue;
+                }
+                String scenarioKey = normalize(feature.get("uri") + ":" + element.get("line"));
+                fold(store, DURATION_PREFIX + scenarioKey, seconds, smoothing);
+                fold(store, FAILURE_PREFIX + scenarioKey, failed ? 1 : 0, smoothing);
+                observed++;
+            }
+        }
+        store.setProperty(marker, String.valueOf(modified));
+        return observed;
+    }
+
+    private static void fold(Properties store, String key, double observation, double smoothing) {
+        String previous = store.getProperty(key);
+        double estimate = previous == null ? observation : smoothing * observation + (1 - smoothing) * parse(previous);
+        store.setProperty(key, String.format(Locale.ROOT, "%.3f", estimate));
+    }
+
+    /**
+     * Get the outcome of a report element: failed if any step or hook failed,
+     * skipped if any was skipped, pending or undefined, passed otherwise
+     *
+     * @param element Scenario or background element
+     * @return failed, skipped or passed
+     */
+    @SuppressWarnings("unchecked")
+    private static String elementStatus(Map<String, Object> element) {
+        String status = "passed";
+        for (String section : new String[]{"before", "steps", "after"}) {
+            for (Map<String, Object> step : (List<Map<String, Object>>) element.getOrDefault(section, List.of())) {
+                Map<String, Object> result = (Map<String, Object>) step.get("result");
+                Object stepStatus = result != null ? result.get("status") : null;
+                if ("failed".equals(stepStatus)) {
+                    return "failed";
+                }
+                if ("skipped".equals(stepStatus) || "pending".equals(stepStatus) || "undefined".equals(stepStatus)) {
+                    status = "skipped";
+                }
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Check if a failed element was flagged as an infrastructure failure by the hooks,
+     * which log {@link DriverSupervisor#INFRASTRUCTURE_FAILURE_MARKER} from an after step hook
+     *
+     * @param element Scenario element
+     * @return true if the browser session was lost
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isInfrastructureFailure(Map<String, Object> element) {
+        for (String section : new String[]{"before", "steps", "after"}) {
+            for (Map<String, Object> step : (List<Map<String, Object>>) element.getOrDefault(section, List.of())) {
+                // After step hooks are nested in the step they ran after
+                if (hasMarker(step) || isInfrastructureFailure(step)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean hasMarker(Map<String, Object> step) {
+        for (Object output : (List<Object>) step.getOrDefault("output", List.of())) {
+            if (String.valueOf(output).startsWith(DriverSupervisor.INFRASTRUCTURE_FAILURE_MARKER)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long elementNanos(Map<String, Object> element) {
+        long nanos = 0;
+        for (String section : new String[]{"before", "steps", "after"}) {
+            for (Map<String, Object> step : (List<Map<String, Object>>) element.getOrDefault(section, List.of())) {
+                Map<String, Object> result = (Map<String, Object>) step.get("result");
+                if (result != null && result.get("duration") instanceof Number) {
+                    nanos += ((Number) result.get("duration")).longValue();
+                }
+            }
+        }
+        return nanos;
+    }
+
+    private static double parse(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException | NullPointerException e) {
+            return -1;
+        }
+    }
+
+    private static Path storeFile() {
+        return Paths.get(configReader.getProperty("scenario.durations.file", DEFAULT_STORE_FILE));
+    }
+
+    private static Properties read(Path file) {
+        Properties store = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                store.load(in);
+            } catch (IOException e) {
+                logger.warn("Failed to read scenario duration store {}: {}", file, e.getMessage());
+            }
+        }
+        return store;
+    }
+
+    private static void write(Path file, Properties store) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "scenario-durations", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            store.store(out, "Scenario duration estimates (seconds, exponential moving average)");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
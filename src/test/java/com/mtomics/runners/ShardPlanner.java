@@ -0,0 +1,222 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ResourceLocks;
+import io.cucumber.testng.PickleWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * ShardPlanner class splits the scenarios of a run into deterministic shards
+ * so several JVMs can each execute a disjoint part of the suite. Scenarios are
+ * packed longest-processing-time first using historical durations, which keeps
+ * the slowest shard close to the ideal wall time. Scenarios sharing a
+ * resource lock (@lock:name) run one after another anyway, so they are planned
+ * as a single unit: kept in one shard and started first
+ */
+public class ShardPlanner {
+
+    private static final Logger logger = LogManager.getLogger(ShardPlanner.class);
+
+    /**
+     * Scenarios that must be planned together, with their expected total duration
+     */
+    private static class Unit {
+        final List<Object[]> scenarios = new ArrayList<>();
+        double seconds;
+    }
+
+    /**
+     * Get a stable identifier of a scenario (feature URI and line)
+     * 
+     * @param scenario TestNG data row (PickleWrapper, FeatureWrapper)
+     * @return Scenario key, e.g. classpath:features/admin/admin_login.feature:11
+     */
+    public static String scenarioKey(Object[] scenario) {
+        PickleWrapper pickle = (PickleWrapper) scenario[0];
+        return pickle.getPickle().getUri() + ":" + pickle.getPickle().getLine();
+    }
+
+    /**
+     * Identify a data row: the scenario key, plus the browser for browser-matrix rows
+     * so the same scenario on different browsers is planned as independent work
+     */
+    private static String rowKey(Object[] scenario) {
+        return scenario.length > 2 ? scenarioKey(scenario) + "@" + scenario[2] : scenarioKey(scenario);
+    }
+
+    /**
+     * Order scenarios for a pool of threads that takes them in order
+     * Replays greedy list scheduling on the expected durations: each free thread
+     * gets the longest remaining work whose resource lock is free at that moment,
+     * so scenarios sharing a lock are spread out instead of blocking several threads.
+     * With scenario.order=fail-first, "longest" is replaced by "most likely to fail per second"
+     * 
+     * @param scenarios Scenarios to run
+     * @param durations Duration estimates
+     * @param threads   Number of threads taking scenarios
+     * @return Scenarios in submission order
+     */
+    public static Object[][] schedule(Object[][] scenarios, ScenarioDurations durations, int threads) {
+        List<Unit> units = plan(scenarios, durations);
+        if (FailFirstOrdering.isEnabled()) {
+            prioritize(units, new FailFirstOrdering(durations));
+        }
+        Map<Unit, Integer> next = new HashMap<>();
+        Map<Unit, Double> freeAt = new HashMap<>();
+        PriorityQueue<Double> threadFreeAt = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            threadFreeAt.add(0.0);
+        }
+        List<Object[]> ordered = new ArrayList<>();
+        while (ordered.size() < scenarios.length) {
+            double now = threadFreeAt.poll();
+            Unit chosen = null;
+            for (Unit unit : units) {
+                if (next.getOrDefault(unit, 0) >= unit.scenarios.size()) {
+                    continue;
+                }
+                double unitFreeAt = freeAt.getOrDefault(unit, 0.0);
+                if (unitFreeAt <= now) {
+                    // Longest work that can start right away
+                    chosen = unit;
+                    break;
+                }
+                if (chosen == null || unitFreeAt < freeAt.getOrDefault(chosen, 0.0)) {
+                    // Otherwise the thread waits for whichever lock frees up first
+                    chosen = unit;
+                }
+            }
+            int index = next.getOrDefault(chosen, 0);
+            Object[] scenario = chosen.scenarios.get(index);
+            next.put(chosen, index + 1);
+            double end = Math.max(now, freeAt.getOrDefault(chosen, 0.0)) + durations.estimate(scenarioKey(scenario));
+            freeAt.put(chosen, end);
+            threadFreeAt.add(end);
+            ordered.add(scenario);
+        }
+        return ordered.toArray(new Object[0][]);
+    }
+
+    /**
+     * Select the scenarios belonging to one shard
+     * Each unit, longest first, goes to the shard with the least expected work so far
+     * 
+     * @param scenarios  All scenarios of the run
+     * @param durations  Duration estimates
+     * @param shardIndex Zero-based shard index
+     * @param shardTotal Number of shards
+     * @return Scenarios of the requested shard
+     */
+    public static Object[][] select(Object[][] scenarios, ScenarioDurations durations, int shardIndex, int shardTotal) {
+        double[] loads = new double[shardTotal];
+        List<Object[]> selected = new ArrayList<>();
+        for (Unit unit : plan(scenarios, durations)) {
+            int target = 0;
+            for (int shard = 1; shard < shardTotal; shard++) {
+                if (loads[shard] < loads[target]) {
+                    target = shard;
+                }
+            }
+            loads[target] += unit.seconds;
+            if (target == shardIndex) {
+                selected.addAll(unit.scenarios);
+            }
+        }
+        logger.info("Shard {}/{}: {} of {} scenario(s), ~{}s expected (slowest shard ~{}s)",
+                shardIndex + 1, shardTotal, selected.size(), scenarios.length,
+                Math.round(loads[shardIndex]), Math.round(Arrays.stream(loads).max().orElse(0)));
+        return selected.toArray(new Object[0][]);
+    }
+
+    /**
+     * Group scenarios into planning units, longest unit first
+     * Every JVM computes the same units and order: ties are broken by scenario key
+     * 
+     * @param scenarios All scenarios
+     * @param durations Duration estimates
+     * @return Units with their scenarios ordered longest first
+     */
+    private static List<Unit> plan(Object[][] scenarios, ScenarioDurations durations) {
+        Object[][] ordered = Arrays.copyOf(scenarios, scenarios.length);
+        Arrays.sort(ordered, Comparator.comparingDouble((Object[] s) -> -durations.estimate(scenarioKey(s)))
+                .thenComparing(ShardPlanner::rowKey));
+
+        // Lock names connected by a scenario holding several of them form one group
+        Map<String, String> groups = new HashMap<>();
+        for (Object[] scenario : ordered) {
+            List<String> names = lockNames(scenario);
+            for (String name : names) {
+                union(groups, names.get(0), name);
+            }
+        }
+        Map<String, Unit> units = new LinkedHashMap<>();
+        for (Object[] scenario : ordered) {
+            List<String> names = lockNames(scenario);
+            String unitKey = names.isEmpty() ? rowKey(scenario) : "@lock:" + find(groups, names.get(0));
+            Unit unit = units.computeIfAbsent(unitKey, key -> new Unit());
+            unit.scenarios.add(scenario);
+            unit.seconds += durations.estimate(scenarioKey(scenario));
+        }
+        List<Unit> plan = new ArrayList<>(units.values());
+        // Stable sort keeps the key order of equally long units
+        plan.sort(Comparator.comparingDouble((Unit unit) -> -unit.seconds));
+        return plan;
+    }
+
+    /**
+     * Reorder units and their scenarios by fail-first priority, highest first
+     * A unit ranks with its most promising scenario
+     * 
+     * @param units    Units in duration order
+     * @param ordering Fail-first scoring
+     */
+    private static void prioritize(List<Unit> units, FailFirstOrdering ordering) {
+        Map<Object[], Double> priorities = new HashMap<>();
+        for (Unit unit : units) {
+            for (Object[] scenario : unit.scenarios) {
+                priorities.put(scenario, ordering.priority(scenarioKey(scenario)));
+            }
+            unit.scenarios.sort(Comparator.comparingDouble((Object[] s) -> -priorities.get(s)));
+        }
+        units.sort(Comparator.comparingDouble((Unit unit) -> -priorities.get(unit.scenarios.get(0))));
+        Object[] first = units.isEmpty() ? null : units.get(0).scenarios.get(0);
+        if (first != null) {
+            logger.info("Fail-first order: starting with {} (failure probability {})", scenarioKey(first),
+                    String.format("%.2f", ordering.failureProbability(scenarioKey(first))));
+        }
+    }
+
+    private static List<String> lockNames(Object[] scenario) {
+        return ResourceLocks.resourceNames(((PickleWrapper) scenario[0]).getPickle().getTags());
+    }
+
+    private static String find(Map<String, String> groups, String name) {
+        String root = name;
+        while (groups.containsKey(root) && !groups.get(root).equals(root)) {
+            root = groups.get(root);
+        }
+        return root;
+    }
+
+    private static void union(Map<String, String> groups, String first, String second) {
+        String a = find(groups, first);
+        String b = find(groups, second);
+        groups.putIfAbsent(a, a);
+        groups.putIfAbsent(b, b);
+        // Smaller name becomes the root so the result does not depend on visiting order
+        if (a.compareTo(b) < 0) {
+            groups.put(b, a);
+        } else {
+            groups.put(a, b);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.mtomics.runners;
+
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+
+/**
+ * ShardedTestRunner class is the base of the per-fork shard runners
+ * Each Surefire fork JVM runs one ShardNRunner, which executes only the
+ * scenarios of shard N and writes its reports to target/cucumber-reports/shard-N.
+ * Surefire hands each runner class to one fork, so a run cannot have more
+ * shards than there are ShardNRunner classes
+ */
+@CucumberOptions(
+    features = "src/test/resources/features",
+    glue = {
+        "com.mtomics.stepDefinitions",
+        "com.mtomics.hooks"
+    },
+    plugin = {
+        "summary"
+    },
+    monochrome = true,
+    dryRun = false,
+    tags = "@adminlogin"
+)
+public abstract class ShardedTestRunner extends AbstractTestNGCucumberTests {
+
+    // Number of ShardNRunner classes in com.mtomics.runners.shards
+    private static final int MAX_SHARDS = 8;
+
+    private int threads = 1;
+
+    /**
+     * Point the report plugins of this JVM at the shard's own output directory
+     * The Extent adapter reads its base folder settings from system properties ahead of
+     * extent.properties, and only applies a base folder that has a date-time pattern; a
+     * quoted literal pattern makes that folder the shard's report directory
+     * Must run before the Cucumber runner is created, i.e. from a static initializer
+     * 
+     * @param shardIndex Zero-based shard index
+     */
+    protected static void configureShard(int shardIndex) {
+        shardTotal();
+        String dir = "target/cucumber-reports/shard-" + shardIndex;
+        System.setProperty("cucumber.plugin", String.join(",",
+                "html:" + dir + "/cucumber.html",
+                "json:" + dir + "/cucumber.json",
+                "junit:" + dir + "/cucumber.xml",
+                "com.aventstack.extentreports.cucumber.adapter.ExtentCucumberAdapter:"));
+        System.setProperty("basefolder.name", dir);
+        System.setProperty("basefolder.enable.delimiter", "false");
+        System.setProperty("basefolder.datetimepattern", "'/'");
+    }
+
+    /**
+     * Remember the data provider thread count the shard's scenarios are scheduled for
+     * 
+     * @param context TestNG context
+     */
+    @BeforeClass(alwaysRun = true)
+    public void captureThreadCount(ITestContext context) {
+        threads = context.getSuite().getXmlSuite().getDataProviderThreadCount();
+    }
+
+    /**
+     * Get the zero-based index of the shard this runner executes
+     * 
+     * @return Shard index
+     */
+    protected abstract int shardIndex();
+
+    /**
+     * Scenarios of this shard only; runners beyond shard.total have nothing to do
+     * 
+     * @return Scenario and feature pairs
+     */
+    @Override
+    @DataProvider(parallel = true)
+    public Object[][] scenarios() {
+        int shardTotal = shardTotal();
+        if (shardIndex() >= shardTotal) {
+            return new Object[0][];
+        }
+        // Forks start and finish at different times: all of them plan from the estimates frozen for this run
+        String runId = System.getProperty("shard.run.id");
+        ScenarioDurations durations = runId != null ? ScenarioDurations.loadSnapshot(runId) : ScenarioDurations.load();
+        Object[][] selected = ChangeImpactAnalyzer.select(super.scenarios());
+        Object[][] shard = ShardPlanner.select(selected, durations, shardIndex(), shardTotal);
+        return ShardPlanner.schedule(shard, durations, threads);
+    }
+
+    /**
+     * Get the number of shards of the run, failing fast when some shards would have no runner
+     * 
+     * @return Shard total
+     */
+    private static int shardTotal() {
+        int shardTotal = Integer.getInteger("shard.total", 1);
+        if (shardTotal < 1 || shardTotal > MAX_SHARDS) {
+            throw new IllegalStateException("shard.total must be between 1 and " + MAX_SHARDS
+                    + " (one ShardNRunner class per shard), got " + shardTotal);
+        }
+        return shardTotal;
+    }
+
+    /**
+     * Learn scenario durations from this shard's cucumber.json, written when the class finished
+     */
+    @AfterSuite(alwaysRun = true)
+    public void recordDurations() {
+        ScenarioDurations.recordRun();
+    }
+}
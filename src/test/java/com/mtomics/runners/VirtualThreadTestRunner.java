@@ -0,0 +1,113 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ConfigReader;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.PickleWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.SkipException;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * VirtualThreadTestRunner class runs every scenario on its own Java 21 virtual
+ * thread. Meant for remote sessions (remote.url): a scenario spends nearly all
+ * of its time blocked on WebDriver HTTP calls, so one JVM can drive as many
+ * sessions as the grid offers (virtual.threads.max.sessions) without a
+ * platform thread per session. Per-scenario state (driver, report test, log
+ * context) lives in ThreadLocals, which are per virtual thread
+ */
+@CucumberOptions(
+    features = "src/test/resources/features",
+    glue = {
+        "com.mtomics.stepDefinitions",
+        "com.mtomics.hooks"
+    },
+    plugin = {
+        "summary",
+        "html:target/cucumber-reports/cucumber.html",
+        "json:target/cucumber-reports/cucumber.json",
+        "junit:target/cucumber-reports/cucumber.xml",
+        "com.aventstack.extentreports.cucumber.adapter.ExtentCucumberAdapter:"
+    },
+    monochrome = true,
+    dryRun = false,
+    tags = "@adminlogin"
+)
+public class VirtualThreadTestRunner extends AbstractTestNGCucumberTests {
+
+    private static final Logger logger = LogManager.getLogger(VirtualThreadTestRunner.class);
+
+    /**
+     * Scenarios are not handed to TestNG's thread pool; see {@link #runScenariosOnVirtualThreads()}
+     * 
+     * @return No data
+     */
+    @Override
+    @DataProvider
+    public Object[][] scenarios() {
+        return new Object[0][];
+    }
+
+    /**
+     * Run all scenarios on virtual threads, at most virtual.threads.max.sessions at a time
+     * Results of individual scenarios are in the Cucumber reports; the test fails if any scenario failed
+     * 
+     * @throws InterruptedException if interrupted while waiting for scenarios
+     */
+    @Test(description = "Runs Cucumber scenarios on virtual threads")
+    public void runScenariosOnVirtualThreads() throws InterruptedException {
+        int maxSessions = new ConfigReader().getIntProperty("virtual.threads.max.sessions", 50);
+        Object[][] selected = ChangeImpactAnalyzer.select(super.scenarios());
+        Object[][] scenarios = ShardPlanner.schedule(selected, ScenarioDurations.load(), maxSessions);
+        Semaphore sessions = new Semaphore(maxSessions, true);
+        AtomicInteger skipped = new AtomicInteger();
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        logger.info("Running {} scenario(s) on virtual threads, {} concurrent session(s) max", scenarios.length, maxSessions);
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("scenario-", 0).factory())) {
+            for (Object[] scenario : scenarios) {
+                // Taken in submission order, so the schedule's longest-first order holds
+                sessions.acquire();
+                executor.submit(() -> {
+                    PickleWrapper pickle = (PickleWrapper) scenario[0];
+                    try {
+                        runScenario(pickle, (FeatureWrapper) scenario[1]);
+                    } catch (SkipException e) {
+                        skipped.incrementAndGet();
+                    } catch (Throwable e) {
+                        failures.add(pickle.getPickle().getName() + ": " + e);
+                    } finally {
+                        sessions.release();
+                    }
+                });
+            }
+        }
+
+        logger.info("Virtual-thread run finished: {} scenario(s), {} failed, {} skipped",
+                scenarios.length, failures.size(), skipped.get());
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.size() + " scenario(s) failed:\n" + String.join("\n", failures));
+        }
+    }
+
+    /**
+     * Learn scenario durations from this run's cucumber.json, written when the class finished
+     */
+    @AfterSuite(alwaysRun = true)
+    public void recordDurations() {
+        ScenarioDurations.recordRun();
+    }
+}
@@ -0,0 +1,253 @@
+package com.mtomics.runners;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WorkQueueCoordinator class holds the queue of scenarios of a distributed run
+ * and hands them to worker JVMs over a line-based socket protocol:
+ * <pre>
+ * worker: HELLO &lt;workerId&gt;                        coordinator: OK
+ * worker: NEXT                                     coordinator: RUN &lt;scenarioKey&gt; | WAIT | DONE
+ * worker: HEARTBEAT                                (while a scenario runs, no reply)
+ * worker: RESULT &lt;scenarioKey&gt; &lt;status&gt; &lt;millis&gt; &lt;message&gt;
+ * </pre>
+ * Workers pull, so fast workers take more scenarios than slow ones. A worker
+ * that disconnects or stays silent past the timeout has its scenario put back
+ * at the front of the queue
+ */
+public class WorkQueueCoordinator implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(WorkQueueCoordinator.class);
+
+    private final LinkedBlockingDeque<String> queue;
+    private final int total;
+    private final long workerTimeoutMillis;
+    private final int maxAttempts;
+    private final int maxFailures;
+    private final ServerSocket server;
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> completedPerWorker = new ConcurrentHashMap<>();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch completion;
+    private volatile boolean closed;
+
+    /**
+     * Constructor
+     *
+     * @param port                Port to listen on, 0 for any free port
+     * @param scenarioKeys        Scenarios to distribute, in the order they should start
+     * @param workerTimeoutMillis Silence after which a worker is considered dead
+     * @param maxAttempts         Times a scenario is handed out before a lost worker counts as its failure
+     * @param maxFailures         Failures after which queued scenarios are skipped, 0 for no limit
+     * @throws IOException if the port cannot be opened
+     */
+    public WorkQueueCoordinator(int port, List<String> scenarioKeys, long workerTimeoutMillis, int maxAttempts,
+            int maxFailures) throws IOException {
+        this.queue = new LinkedBlockingDeque<>(scenarioKeys);
+        this.total = scenarioKeys.size();
+        this.workerTimeoutMillis = workerTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.maxFailures = maxFailures;
+        this.completion = new CountDownLatch(total);
+        this.server = new ServerSocket(port);
+    }
+
+    /**
+     * Start accepting workers
+     */
+    public void start() {
+        logger.info("Work-queue coordinator listening on port {} with {} scenario(s)", getPort(), total);
+        Thread acceptor = new Thread(this::acceptWorkers, "work-queue-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Get the port workers connect to
+     *
+     * @return Port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Wait until every scenario has a result
+     *
+     * @param timeoutMillis Maximum time to wait
+     * @return true if all scenarios finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+        return completion.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the failed scenarios with their messages
+     *
+     * @return Failures
+     */
+    public List<String> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /**
+     * Get the number of scenarios with a result
+     *
+     * @return Finished scenario count
+     */
+    public int getFinishedCount() {
+        return results.size();
+    }
+
+    /**
+     * Log how the work was spread across workers
+     */
+    public void logSummary() {
+        logger.info("Work-queue run: {}/{} scenario(s) finished, {} failed", results.size(), total, failures.size());
+        completedPerWorker.forEach((worker, count) -> logger.info("  worker {}: {} scenario(s)", worker, count.get()));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close coordinator socket: {}", e.getMessage());
+        }
+    }
+
+    private void acceptWorkers() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().name("coordinator-worker-", 0).start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("Coordinator stopped accepting workers: {}", e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serve one worker connection until it is done or gone
+     *
+     * @param socket Worker connection
+     */
+    private void serve(Socket socket) {
+        String workerId = socket.getRemoteSocketAddress().toString();
+        String current = null;
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            socket.setSoTimeout((int) workerTimeoutMillis);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("HELLO ")) {
+                    workerId = line.substring("HELLO ".length()).trim();
+                    logger.info("Worker {} connected", workerId);
+                    out.println("OK");
+                } else if (line.equals("NEXT")) {
+                    current = queue.pollFirst();
+                    if (current != null) {
+                        attempts.merge(current, 1, Integer::sum);
+                        out.println("RUN " + current);
+                    } else if (completion.getCount() == 0) {
+                        out.println("DONE");
+                        return;
+                    } else {
+                        // Everything is handed out, but a lost worker may still give a scenario back
+                        out.println("WAIT");
+                    }
+                } else if (line.startsWith("RESULT ")) {
+                    String[] parts = line.split(" ", 5);
+                    record(parts[1], parts[2], parts.length > 4 ? parts[4] : "", workerId, parts[3]);
+                    current = null;
+                } else if (!line.equals("HEARTBEAT")) {
+                    logger.warn("Ignoring unknown message from worker {}: {}", workerId, line);
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            logger.error("Worker {} silent for {}ms, considering it dead", workerId, workerTimeoutMillis);
+        } catch (SocketException e) {
+            logger.error("Lost connection to worker {}: {}", workerId, e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error talking to worker {}: {}", workerId, e.getMessage());
+        } finally {
+            if (current != null && !results.containsKey(current)) {
+                requeue(current, workerId);
+            }
+        }
+    }
+
+    private void record(String key, String status, String message, String workerId, String millis) {
+        if (results.putIfAbsent(key, status) != null) {
+            return;
+        }
+        completedPerWorker.computeIfAbsent(workerId, id -> new AtomicInteger()).incrementAndGet();
+        if ("FAILED".equals(status)) {
+            failures.add(key + " (" + workerId + "): " + message);
+            logger.error("FAILED {} on {} in {}ms: {}", key, workerId, millis, message);
+            if (maxFailures > 0 && failures.size() == maxFailures) {
+                skipQueued();
+            }
+        } else {
+            logger.info("{} {} on {} in {}ms", status, key, workerId, millis);
+        }
+        completion.countDown();
+    }
+
+    /**
+     * Fail-fast: scenarios still in the queue are never handed out; running ones finish
+     */
+    private void skipQueued() {
+        List<String> skipped = new ArrayList<>();
+        queue.drainTo(skipped);
+        logger.error("FAIL-FAST: {} scenario(s) failed, skipping {} queued scenario(s)", maxFailures, skipped.size());
+        for (String key : skipped) {
+            if (results.putIfAbsent(key, "SKIPPED") == null) {
+                completion.countDown();
+            }
+        }
+    }
+
+    private void requeue(String key, String workerId) {
+        int handedOut = attempts.getOrDefault(key, 0);
+        if (maxFailures > 0 && failures.size() >= maxFailures) {
+            record(key, "SKIPPED", "fail-fast", workerId, "0");
+            return;
+        }
+        if (handedOut >= maxAttempts) {
+            record(key, "FAILED", "worker lost " + handedOut + " time(s) while running it", workerId, "0");
+            return;
+        }
+        logger.warn("Requeueing {} after losing worker {} (attempt {} of {})", key, workerId, handedOut, maxAttempts);
+        queue.offerFirst(key);
+    }
+}
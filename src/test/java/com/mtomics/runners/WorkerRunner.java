@@ -0,0 +1,209 @@
+package com.mtomics.runners;
+
+import com.mtomics.utils.ConfigReader;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.PickleWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WorkerRunner class pulls scenarios from a CoordinatorRunner, runs them and
+ * streams each result back. With worker.threads=N the worker runs N scenarios
+ * at a time over N connections. Reports go to target/cucumber-reports/worker-&lt;id&gt;
+ */
+@CucumberOptions(
+    features = "src/test/resources/features",
+    glue = {
+        "com.mtomics.stepDefinitions",
+        "com.mtomics.hooks"
+    },
+    plugin = {
+        "summary"
+    },
+    monochrome = true,
+    dryRun = false,
+    tags = "@adminlogin"
+)
+public class WorkerRunner extends AbstractTestNGCucumberTests {
+
+    private static final Logger logger = LogManager.getLogger(WorkerRunner.class);
+    private static final long HEARTBEAT_MILLIS = 10_000;
+    private static final long WAIT_MILLIS = 1_000;
+
+    static {
+        String dir = "target/cucumber-reports/worker-" + workerId();
+        System.setProperty("cucumber.plugin", String.join(",",
+                "html:" + dir + "/cucumber.html",
+                "json:" + dir + "/cucumber.json",
+                "junit:" + dir + "/cucumber.xml"));
+    }
+
+    private final ConfigReader configReader = new ConfigReader();
+
+    /**
+     * Scenarios come from the coordinator, not from TestNG's data provider
+     * 
+     * @return No data
+     */
+    @Override
+    @DataProvider
+    public Object[][] scenarios() {
+        return new Object[0][];
+    }
+
+    /**
+     * Pull and run scenarios until the coordinator says the run is done
+     * 
+     * @throws Exception if the coordinator cannot be reached
+     */
+    @Test(description = "Runs Cucumber scenarios handed out by the work-queue coordinator")
+    public void runQueuedScenarios() throws Exception {
+        Map<String, Object[]> scenarios = new HashMap<>();
+        for (Object[] scenario : super.scenarios()) {
+            scenarios.put(ScenarioDurations.normalize(ShardPlanner.scenarioKey(scenario)), scenario);
+        }
+        int threads = Math.max(1, configReader.getIntProperty("worker.threads", 1));
+        List<Thread> connections = new ArrayList<>();
+        List<Exception> errors = new ArrayList<>();
+        for (int i = 1; i <= threads; i++) {
+            String id = threads == 1 ? workerId() : workerId() + "/" + i;
+            connections.add(Thread.ofPlatform().name("worker-" + id).start(() -> {
+                try {
+                    pullScenarios(id, scenarios);
+                } catch (Exception e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread connection : connections) {
+            connection.join();
+        }
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+    }
+
+    /**
+     * Serve one coordinator connection: NEXT, run, RESULT, until DONE
+     * 
+     * @param id        Worker id reported to the coordinator
+     * @param scenarios Scenarios known to this worker by key
+     * @throws IOException if the coordinator cannot be reached or goes away
+     */
+    private void pullScenarios(String id, Map<String, Object[]> scenarios) throws IOException {
+        try (Socket socket = connect();
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            out.println("HELLO " + id);
+            in.readLine();
+            int ran = 0;
+            while (true) {
+                out.println("NEXT");
+                String reply = in.readLine();
+                if (reply == null || reply.equals("DONE")) {
+                    break;
+                }
+                if (reply.equals("WAIT")) {
+                    sleep(WAIT_MILLIS);
+                    continue;
+                }
+                String key = reply.substring("RUN ".length());
+                out.println("RESULT " + key + " " + run(key, scenarios.get(key), out));
+                ran++;
+            }
+            logger.info("Worker {} finished after {} scenario(s)", id, ran);
+        }
+    }
+
+    /**
+     * Run one scenario, sending heartbeats while it runs
+     * 
+     * @param key      Scenario key
+     * @param scenario Scenario row, null if this worker does not know the key
+     * @param out      Connection to the coordinator
+     * @return Status, duration and message for the RESULT line
+     */
+    private String run(String key, Object[] scenario, PrintWriter out) {
+        if (scenario == null) {
+            return "FAILED 0 scenario not found on this worker (different features or tags?)";
+        }
+        Thread heartbeat = Thread.ofVirtual().start(() -> {
+            while (true) {
+                sleep(HEARTBEAT_MILLIS);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                out.println("HEARTBEAT");
+            }
+        });
+        long start = System.currentTimeMillis();
+        String status = "PASSED";
+        String message = "";
+        try {
+            runScenario((PickleWrapper) scenario[0], (FeatureWrapper) scenario[1]);
+        } catch (SkipException e) {
+            status = "SKIPPED";
+            message = String.valueOf(e.getMessage());
+        } catch (Throwable e) {
+            status = "FAILED";
+            message = String.valueOf(e);
+        } finally {
+            heartbeat.interrupt();
+        }
+        // The protocol is line based
+        return status + " " + (System.currentTimeMillis() - start) + " " + message.replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Connect to the coordinator, retrying while it is still starting up
+     * 
+     * @return Connected socket
+     * @throws IOException if the coordinator cannot be reached in time
+     */
+    private Socket connect() throws IOException {
+        String host = configReader.getProperty("coordinator.host", "localhost");
+        int port = configReader.getIntProperty("coordinator.port", 7070);
+        long deadline = System.currentTimeMillis() + configReader.getLongProperty("worker.connect.timeout.seconds", 60) * 1000;
+        while (true) {
+            try {
+                return new Socket(host, port);
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Coordinator " + host + ":" + port + " not reachable", e);
+                }
+                sleep(WAIT_MILLIS);
+            }
+        }
+    }
+
+    private static String workerId() {
+        return System.getProperty("worker.id", String.valueOf(ProcessHandle.current().pid()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard0Runner class executes shard 0 of a sharded run
+ */
+public class Shard0Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(0);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 0;
+    }
+}
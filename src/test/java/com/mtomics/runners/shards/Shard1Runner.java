@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard1Runner class executes shard 1 of a sharded run
+ */
+public class Shard1Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(1);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 1;
+    }
+}
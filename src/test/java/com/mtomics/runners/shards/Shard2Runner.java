@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard2Runner class executes shard 2 of a sharded run
+ */
+public class Shard2Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(2);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 2;
+    }
+}
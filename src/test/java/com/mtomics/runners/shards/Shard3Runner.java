@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard3Runner class executes shard 3 of a sharded run
+ */
+public class Shard3Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(3);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 3;
+    }
+}
@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard4Runner class executes shard 4 of a sharded run
+ */
+public class Shard4Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(4);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 4;
+    }
+}
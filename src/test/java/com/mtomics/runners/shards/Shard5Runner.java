@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard5Runner class executes shard 5 of a sharded run
+ */
+public class Shard5Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(5);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 5;
+    }
+}
@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard6Runner class executes shard 6 of a sharded run
+ */
+public class Shard6Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(6);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 6;
+    }
+}
@@ -0,0 +1,18 @@
+package com.mtomics.runners.shards;
+
+import com.mtomics.runners.ShardedTestRunner;
+
+/**
+ * Shard7Runner class executes shard 7 of a sharded run
+ */
+public class Shard7Runner extends ShardedTestRunner {
+
+    static {
+        configureShard(7);
+    }
+
+    @Override
+    protected int shardIndex() {
+        return 7;
+    }
+}
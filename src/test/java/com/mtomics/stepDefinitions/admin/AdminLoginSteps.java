@@ -3,6 +3,7 @@ package com.mtomics.stepDefinitions.admin;
 import com.mtomics.context.TestContext;
 import com.mtomics.pages.admin.AdminLoginPage;
 import com.mtomics.pages.admin.UserManagementPage;
+import com.mtomics.utils.AppReadiness;
 import com.mtomics.utils.ConfigReader;
 import com.mtomics.utils.ExtentReportManager;
 import com.mtomics.utils.LogHelper;
@@ -40,7 +41,7 @@ public class AdminLoginSteps {
     public void i_navigate_to_the_mtomics_login_page() {
         LogHelper.logStep("Navigating to MTOmics login page");
         String baseUrl = configReader.getBaseUrl();
-        driver.get(baseUrl + "/sign-in");
+        AppReadiness.navigate(driver, baseUrl + "/sign-in");
         ExtentReportManager.logInfo("Navigated to login page: " + baseUrl + "/sign-in");
 
         // Verify login page is displayed
@@ -0,0 +1,158 @@
+package com.mtomics.stepDefinitions.common;
+
+import com.mtomics.context.TestContext;
+import com.mtomics.utils.AccountPool;
+import com.mtomics.utils.AppReadiness;
+import com.mtomics.utils.ConfigReader;
+import com.mtomics.utils.ExtentReportManager;
+import com.mtomics.utils.FixtureSeeder;
+import com.mtomics.utils.LogHelper;
+import com.mtomics.utils.NavigationPlanner;
+import io.cucumber.java.en.Given;
+import org.junit.Assert;
+import org.openqa.selenium.WebDriver;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FixtureSteps - Step definitions for preconditions that are seeded through the API
+ * With fixtures.enabled=true the entities come from the feature's fixture spec (created before the
+ * scenario started) or are created on the spot; otherwise they are expected to exist already
+ */
+public class FixtureSteps {
+
+    private static final String CLIENT = "client";
+    private static final String EVENT_TYPE = "event-type";
+    private static final String SCHEDULE = "schedule";
+    private static final String APPOINTMENT = "appointment";
+    private static final String DEFAULT_SCHEDULE_NAME = "Test Schedule";
+
+    private WebDriver driver;
+    private TestContext testContext;
+    private ConfigReader configReader;
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param testContext Test context for sharing data
+     */
+    public FixtureSteps(TestContext testContext) {
+        this.testContext = testContext;
+        this.driver = testContext.getDriver();
+        this.configReader = new ConfigReader();
+    }
+
+    @Given("I have an existing client {string}")
+    public void i_have_an_existing_client(String name) {
+        haveFixture(CLIENT, name);
+    }
+
+    @Given("I have a client {string}")
+    public void i_have_a_client(String name) {
+        haveFixture(CLIENT, name);
+    }
+
+    @Given("I have an event type {string}")
+    public void i_have_an_event_type(String name) {
+        haveFixture(EVENT_TYPE, name);
+    }
+
+    @Given("I have created event types")
+    public void i_have_created_event_types() {
+        if (testContext.isRestoredBackgroundStep() || !FixtureSeeder.isEnabled()) {
+            LogHelper.logStep("Event types are expected to exist already");
+            return;
+        }
+        List<Map<String, Object>> eventTypes = getFixtures().getAll(EVENT_TYPE);
+        Assert.assertFalse("No event types declared in the feature's fixture spec", eventTypes.isEmpty());
+        testContext.setContext(EVENT_TYPE + "s", eventTypes);
+        ExtentReportManager.logInfo("Seeded " + eventTypes.size() + " event type(s)");
+    }
+
+    @Given("I have created a schedule {string}")
+    public void i_have_created_a_schedule(String name) {
+        haveFixture(SCHEDULE, name);
+    }
+
+    @Given("I have a schedule {string}")
+    public void i_have_a_schedule(String name) {
+        haveFixture(SCHEDULE, name);
+    }
+
+    @Given("I have created a schedule")
+    public void i_have_created_a_schedule() {
+        if (FixtureSeeder.isEnabled() && !testContext.isRestoredBackgroundStep()) {
+            List<Map<String, Object>> schedules = getFixtures().getAll(SCHEDULE);
+            if (!schedules.isEmpty()) {
+                haveFixture(SCHEDULE, String.valueOf(schedules.get(0).get("name")));
+                return;
+            }
+        }
+        haveFixture(SCHEDULE, DEFAULT_SCHEDULE_NAME);
+    }
+
+    @Given("I have an appointment with {string} on {string} at {string}")
+    public void i_have_an_appointment_with(String client, String date, String time) {
+        String name = client + " " + date + " " + time;
+        if (FixtureSeeder.isEnabled() && !testContext.isRestoredBackgroundStep()) {
+            // An appointment needs its client, event type and slot, so it cannot be created from the name alone
+            Assert.assertTrue("Declare appointment '" + name + "' in the feature's fixture spec",
+                    getFixtures().isStarted(APPOINTMENT, name));
+        }
+        haveFixture(APPOINTMENT, name);
+    }
+
+    /**
+     * Make sure a fixture exists and remember it in the scenario context under its type
+     * 
+     * @param type Fixture type
+     * @param name Fixture name
+     */
+    private void haveFixture(String type, String name) {
+        if (testContext.isRestoredBackgroundStep()) {
+            LogHelper.logStep(type + " '" + name + "' restored from Background checkpoint");
+            return;
+        }
+        if (!FixtureSeeder.isEnabled()) {
+            LogHelper.logStep(type + " '" + name + "' is expected to exist already");
+            testContext.setContext(type, Map.of("name", name));
+            return;
+        }
+        FixtureSeeder.Fixtures fixtures = getFixtures();
+        boolean seededBeforeScenario = fixtures.isStarted(type, name);
+        Map<String, Object> fixture = fixtures.get(type, name);
+        testContext.setContext(type, fixture);
+        if (!seededBeforeScenario) {
+            reloadPage();
+        }
+        ExtentReportManager.logInfo("Seeded " + type + " '" + name + "' (id " + fixture.get("id") + ")");
+    }
+
+    /**
+     * Get the scenario's fixtures, owned by the logged-in account when the feature has no spec
+     * 
+     * @return Fixtures
+     */
+    private FixtureSeeder.Fixtures getFixtures() {
+        if (testContext.getFixtures() == null) {
+            String role = FixtureSeeder.getOwnerRole(null);
+            AccountPool.Lease lease = testContext.getAccountLease(role);
+            Assert.assertNotNull("Log in as a " + role + " before creating fixtures", lease);
+            testContext.setFixtures(FixtureSeeder.onDemand(lease.getAccount()));
+        }
+        return testContext.getFixtures();
+    }
+
+    /**
+     * Reload the current app page so it shows a fixture created after it loaded
+     */
+    private void reloadPage() {
+        if (NavigationPlanner.hasPendingNavigation(driver)
+                || !driver.getCurrentUrl().startsWith(configReader.getBaseUrl())) {
+            return;
+        }
+        driver.navigate().refresh();
+        AppReadiness.waitUntilReady(driver);
+    }
+}
@@ -0,0 +1,137 @@
+package com.mtomics.stepDefinitions.common;
+
+import com.mtomics.context.TestContext;
+import com.mtomics.pages.admin.AdminLoginPage;
+import com.mtomics.utils.AccountPool;
+import com.mtomics.utils.ApiLogin;
+import com.mtomics.utils.AppReadiness;
+import com.mtomics.utils.ConfigReader;
+import com.mtomics.utils.ExtentReportManager;
+import com.mtomics.utils.LogHelper;
+import com.mtomics.utils.SessionCache;
+import io.cucumber.java.en.Given;
+import org.junit.Assert;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+
+/**
+ * LoginSteps - Step definitions for signing in with a pooled account of any role
+ * With session.cache.enabled=true only the first login per account uses the login form, and with
+ * auth.api.enabled=true none does; scenarios tagged @adminlogin always use the form
+ */
+public class LoginSteps {
+
+    private static final String UI_LOGIN_TAG = "@adminlogin";
+
+    private WebDriver driver;
+    private TestContext testContext;
+    private AdminLoginPage loginPage;
+    private ConfigReader configReader;
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param testContext Test context for sharing data
+     */
+    public LoginSteps(TestContext testContext) {
+        this.testContext = testContext;
+        this.driver = testContext.getDriver();
+        this.loginPage = new AdminLoginPage(driver);
+        this.configReader = new ConfigReader();
+    }
+
+    @Given("I am logged in as a(n) {word}")
+    public void i_am_logged_in_as(String role) {
+        if (testContext.isRestoredBackgroundStep()) {
+            LogHelper.logStep("Logged in as " + role + " (restored from Background checkpoint)");
+            return;
+        }
+        LogHelper.logStep("Logging in as " + role);
+        // An account of this role may already be held, e.g. leased for a Background checkpoint
+        AccountPool.Lease lease = testContext.getAccountLease(role);
+        if (lease == null) {
+            lease = AccountPool.lease(role);
+            // Registered before logging in so the account is returned even if login fails
+            testContext.addAccountLease(lease);
+        }
+        AccountPool.Account account = lease.getAccount();
+        testContext.setData(role + "Email", account.getEmail());
+
+        // Scenarios about login itself always go through the form
+        if (!testContext.getScenarioTags().contains(UI_LOGIN_TAG)) {
+            if (SessionCache.isEnabled() && restoreCachedSession(account)) {
+                ExtentReportManager.logPass("Logged in as " + role + " with cached session: " + account.getEmail());
+                return;
+            }
+            if (ApiLogin.isEnabled() && loginThroughApi(account)) {
+                ExtentReportManager.logPass("Logged in as " + role + " through the API: " + account.getEmail());
+                return;
+            }
+        }
+
+        String signInUrl = configReader.getBaseUrl() + "/sign-in";
+        AppReadiness.navigate(driver, signInUrl);
+        loginPage.login(account.getEmail(), account.getPassword());
+
+        try {
+            new WebDriverWait(driver, Duration.ofSeconds(configReader.getIntProperty("explicit.wait", 20)))
+                    .until(d -> !d.getCurrentUrl().contains("/sign-in"));
+            AppReadiness.waitUntilReady(driver);
+        } catch (TimeoutException e) {
+            LogHelper.logStep("Still on sign-in page after login as " + account.getEmail());
+        }
+        Assert.assertFalse("Should have left the sign-in page", driver.getCurrentUrl().contains("/sign-in"));
+        if (SessionCache.isEnabled()) {
+            SessionCache.capture(account.getEmail(), driver);
+        }
+        ExtentReportManager.logPass("Logged in as " + role + ": " + account.getEmail());
+    }
+
+    /**
+     * Sign in by injecting the account's cached session instead of using the login form
+     * 
+     * @param account Leased account
+     * @return true if the cached session was accepted
+     */
+    private boolean restoreCachedSession(AccountPool.Account account) {
+        SessionCache.Session session = SessionCache.get(account.getEmail());
+        if (session == null) {
+            return false;
+        }
+        try {
+            if (SessionCache.restore(driver, session)) {
+                LogHelper.logStep("Restored cached session of " + account.getEmail());
+                return true;
+            }
+        } catch (Exception e) {
+            LogHelper.logStep("Cached session of " + account.getEmail() + " could not be restored: " + e.getMessage());
+        }
+        SessionCache.invalidate(account.getEmail());
+        return false;
+    }
+
+    /**
+     * Sign in through the auth endpoint and seed the browser with the returned session
+     * 
+     * @param account Leased account
+     * @return true if the app accepted the session
+     */
+    private boolean loginThroughApi(AccountPool.Account account) {
+        try {
+            SessionCache.Session session = ApiLogin.login(account.getEmail(), account.getPassword());
+            if (SessionCache.restore(driver, session)) {
+                if (SessionCache.isEnabled()) {
+                    SessionCache.put(account.getEmail(), session);
+                }
+                return true;
+            }
+            LogHelper.logStep("App rejected the API session of " + account.getEmail() + ", using the login form");
+        } catch (Exception e) {
+            LogHelper.logStep("API login of " + account.getEmail() + " failed, using the login form: " + e.getMessage());
+        }
+        return false;
+    }
+}
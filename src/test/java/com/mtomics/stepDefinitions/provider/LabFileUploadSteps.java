@@ -0,0 +1,59 @@
+package com.mtomics.stepDefinitions.provider;
+
+import com.mtomics.context.TestContext;
+import com.mtomics.pages.provider.LabFileUploadPage;
+import com.mtomics.utils.ConfigReader;
+import com.mtomics.utils.ExtentReportManager;
+import com.mtomics.utils.LogHelper;
+import io.cucumber.java.en.Given;
+import org.junit.Assert;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Map;
+
+/**
+ * LabFileUploadSteps - Step definitions for provider lab file upload scenarios
+ * Used in the Background of a @checkpoint feature: steps return early while the
+ * Background's state is restored from its checkpoint
+ */
+public class LabFileUploadSteps {
+
+    private static final String CLIENT = "client";
+
+    private WebDriver driver;
+    private TestContext testContext;
+    private ConfigReader configReader;
+    private LabFileUploadPage labFileUploadPage;
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param testContext Test context for sharing data
+     */
+    public LabFileUploadSteps(TestContext testContext) {
+        this.testContext = testContext;
+        this.driver = testContext.getDriver();
+        this.configReader = new ConfigReader();
+        this.labFileUploadPage = new LabFileUploadPage(driver);
+    }
+
+    @Given("I navigate to the client's lab results section")
+    @SuppressWarnings("unchecked")
+    public void i_navigate_to_the_clients_lab_results_section() {
+        if (testContext.isRestoredBackgroundStep()) {
+            LogHelper.logStep("Client's lab results section restored from Background checkpoint");
+            return;
+        }
+        Map<String, Object> client = (Map<String, Object>) testContext.getContext(CLIENT);
+        Assert.assertNotNull("Create a client before opening its lab results", client);
+        Object clientId = client.get("id");
+        if (clientId != null) {
+            labFileUploadPage.navigateToLabResults(configReader.getBaseUrl() + "/clients/" + clientId + "/lab-results");
+        } else {
+            // Client expected to exist already (fixtures disabled): pick it on the lab results page
+            labFileUploadPage.navigateToLabResults(configReader.getBaseUrl() + "/lab-results");
+            labFileUploadPage.selectClientByName(String.valueOf(client.get("name")));
+        }
+        ExtentReportManager.logPass("Lab results section of client '" + client.get("name") + "' opened");
+    }
+}
@@ -0,0 +1,244 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AccountPool class hands out test accounts per role so parallel scenarios
+ * never share a server-side session or data set. Accounts come from
+ * "role.accounts" (comma-separated email:password pairs) and fall back to the
+ * single "role.email" / "role.password" account. A lock file per account
+ * keeps separate JVMs (Surefire forks) from leasing the same account at once
+ */
+public class AccountPool {
+
+    private static final Logger logger = LogManager.getLogger(AccountPool.class);
+    private static final long WAIT_SLICE_MILLIS = 200;
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final Map<String, List<Account>> accounts = new ConcurrentHashMap<>();
+    private static final Set<Account> leased = ConcurrentHashMap.newKeySet();
+    private static final Map<String, RoleMetrics> metrics = new ConcurrentHashMap<>();
+    // Lock and condition rather than Object.wait, which would pin a virtual thread to its carrier
+    private static final ReentrantLock RETURN_LOCK = new ReentrantLock();
+    private static final Condition RETURNED = RETURN_LOCK.newCondition();
+
+    /**
+     * Test account credentials
+     */
+    public static class Account {
+        private final String role;
+        private final String email;
+        private final String password;
+
+        Account(String role, String email, String password) {
+            this.role = role;
+            this.email = email;
+            this.password = password;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+    }
+
+    /**
+     * An account held by one scenario until released
+     */
+    public static class Lease {
+        private final Account account;
+        private final FileChannel channel;
+        private final FileLock lock;
+        private final long leasedAt = System.currentTimeMillis();
+
+        Lease(Account account, FileChannel channel, FileLock lock) {
+            this.account = account;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        public Account getAccount() {
+            return account;
+        }
+    }
+
+    private static class RoleMetrics {
+        final AtomicLong leases = new AtomicLong();
+        final AtomicLong waitedMillis = new AtomicLong();
+        final AtomicLong maxWaitMillis = new AtomicLong();
+        final AtomicLong heldMillis = new AtomicLong();
+    }
+
+    /**
+     * Lease a free account of a role, waiting until one is returned if all are in use
+     *
+     * @param role Account role, e.g. provider, admin, client
+     * @return Lease, to be returned with {@link #release(Lease)}
+     */
+    public static Lease lease(String role) {
+        String key = role.trim().toLowerCase();
+        List<Account> candidates = accountsFor(key);
+        long start = System.currentTimeMillis();
+        long deadline = start + configReader.getLongProperty("account.lease.timeout.seconds", 300) * 1000;
+        while (true) {
+            for (Account account : candidates) {
+                Lease lease = tryLease(account);
+                if (lease != null) {
+                    long waited = System.currentTimeMillis() - start;
+                    RoleMetrics roleMetrics = metrics.computeIfAbsent(key, k -> new RoleMetrics());
+                    roleMetrics.leases.incrementAndGet();
+                    roleMetrics.waitedMillis.addAndGet(waited);
+                    roleMetrics.maxWaitMillis.accumulateAndGet(waited, Math::max);
+                    logger.info("Leased {} account {} after {}ms", key, account.getEmail(), waited);
+                    return lease;
+                }
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IllegalStateException("Timed out after " + (deadline - start) + "ms waiting for a free "
+                        + key + " account (" + candidates.size() + " configured)");
+            }
+            // Accounts freed by other forks give no notification, so poll
+            RETURN_LOCK.lock();
+            try {
+                RETURNED.await(WAIT_SLICE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a " + key + " account", e);
+            } finally {
+                RETURN_LOCK.unlock();
+            }
+        }
+    }
+
+    /**
+     * Return a leased account to the pool
+     *
+     * @param lease Lease obtained from {@link #lease(String)}
+     */
+    public static void release(Lease lease) {
+        try {
+            lease.lock.release();
+            lease.channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to release lock of account {}: {}", lease.account.getEmail(), e.getMessage());
+        } finally {
+            leased.remove(lease.account);
+            metrics.computeIfAbsent(lease.account.getRole(), k -> new RoleMetrics())
+                    .heldMillis.addAndGet(System.currentTimeMillis() - lease.leasedAt);
+            RETURN_LOCK.lock();
+            try {
+                RETURNED.signalAll();
+            } finally {
+                RETURN_LOCK.unlock();
+            }
+            logger.debug("Returned {} account {}", lease.account.getRole(), lease.account.getEmail());
+        }
+    }
+
+    /**
+     * Claim an account in this JVM first, then across JVMs through its lock file
+     *
+     * @param account Account to claim
+     * @return Lease, or null if the account is in use
+     */
+    private static Lease tryLease(Account account) {
+        if (!leased.add(account)) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile(account), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return new Lease(account, channel, lock);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to lock account {}: {}", account.getEmail(), e.getMessage());
+        }
+        leased.remove(account);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close account lock: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the configured accounts of a role
+     *
+     * @param role Account role, lower case
+     * @return Accounts, from <role>.accounts or <role>.email/<role>.password
+     */
+    static List<Account> accountsFor(String role) {
+        return accounts.computeIfAbsent(role, key -> {
+            List<Account> parsed = new ArrayList<>();
+            String list = configReader.getProperty(key + ".accounts", "");
+            for (String entry : list.split(",")) {
+                int separator = entry.indexOf(':');
+                if (separator > 0) {
+                    parsed.add(new Account(key, entry.substring(0, separator).trim(), entry.substring(separator + 1).trim()));
+                } else if (!entry.isBlank()) {
+                    logger.warn("Ignoring malformed {}.accounts entry '{}', expected email:password", key, entry.trim());
+                }
+            }
+            if (parsed.isEmpty()) {
+                String email = configReader.getProperty(key + ".email");
+                if (email == null || email.isBlank()) {
+                    throw new IllegalArgumentException("No accounts configured for role '" + key + "'. Set "
+                            + key + ".accounts or " + key + ".email/" + key + ".password");
+                }
+                parsed.add(new Account(key, email, configReader.getProperty(key + ".password")));
+            }
+            logger.info("Account pool for role {}: {} account(s)", key, parsed.size());
+            return parsed;
+        });
+    }
+
+    private static Path lockFile(Account account) throws IOException {
+        Path dir = Paths.get(configReader.getProperty("account.lock.dir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "mtomics-automation", "accounts").toString()));
+        Files.createDirectories(dir);
+        return dir.resolve(account.getRole() + "-" + account.getEmail().replaceAll("[^A-Za-z0-9._-]", "_") + ".lock");
+    }
+
+    /**
+     * Log lease counts, wait and hold times per role
+     */
+    public static void logMetrics() {
+        metrics.forEach((role, roleMetrics) -> {
+            long leases = roleMetrics.leases.get();
+            if (leases > 0) {
+                logger.info("Account pool {}: {} lease(s), avg wait {}ms, max wait {}ms, avg hold {}ms",
+                        role, leases, roleMetrics.waitedMillis.get() / leases, roleMetrics.maxWaitMillis.get(),
+                        roleMetrics.heldMillis.get() / leases);
+            }
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ApiLogin class signs an account in by calling the MTOmics auth endpoint
+ * directly instead of filling in the login form. The tokens in the response
+ * are mapped to localStorage keys (auth.api.storage) and any session cookies
+ * are kept, giving a SessionCache.Session that is injected into the browser
+ * With auth.stub.enabled=true the endpoint is a local StubAuthServer
+ */
+public class ApiLogin {
+
+    private static final Logger logger = LogManager.getLogger(ApiLogin.class);
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final Json JSON = new Json();
+    private static volatile HttpClient httpClient;
+
+    /**
+     * Check if scenarios that are not about login sign in through the API
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return configReader.getBooleanProperty("auth.api.enabled", false);
+    }
+
+    /**
+     * Sign in through the auth endpoint
+     *
+     * @param email    Account email
+     * @param password Account password
+     * @return Session to inject into the browser
+     * @throws IllegalStateException if the endpoint is not configured or rejects the credentials
+     */
+    public static SessionCache.Session login(String email, String password) {
+        long start = System.currentTimeMillis();
+        HttpResponse<String> response = requestLogin(email, password);
+        Map<String, Object> body = parseBody(response);
+        Map<String, String> localStorage = new LinkedHashMap<>();
+        for (String mapping : configReader.getProperty("auth.api.storage", "token=token").split(",")) {
+            String[] parts = mapping.split("=", 2);
+            Object value = parts.length == 2 ? body.get(parts[1].trim()) : null;
+            if (value != null) {
+                localStorage.put(parts[0].trim(), value instanceof String ? (String) value : JSON.toJson(value));
+            }
+        }
+        Set<Cookie> cookies = new HashSet<>();
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            for (HttpCookie cookie : HttpCookie.parse(header)) {
+                cookies.add(toSeleniumCookie(cookie));
+            }
+        }
+        if (localStorage.isEmpty() && cookies.isEmpty()) {
+            throw new IllegalStateException("Auth endpoint returned neither a mapped token nor a cookie for " + email);
+        }
+        logger.info("Signed in {} through the API in {}ms", email, System.currentTimeMillis() - start);
+        return new SessionCache.Session(cookies, localStorage, new LinkedHashMap<>(),
+                configReader.getBaseUrl() + configReader.getProperty("auth.api.landing.path", "/"));
+    }
+
+    /**
+     * Get an access token for calling the backend API as an account
+     *
+     * @param email    Account email
+     * @param password Account password
+     * @return Bearer token (response field auth.api.token.field)
+     * @throws IllegalStateException if the endpoint is not configured, rejects the credentials or returns no token
+     */
+    public static String getAccessToken(String email, String password) {
+        String field = configReader.getProperty("auth.api.token.field", "token");
+        Object token = parseBody(requestLogin(email, password)).get(field);
+        if (!(token instanceof String)) {
+            throw new IllegalStateException("Auth endpoint returned no '" + field + "' for " + email);
+        }
+        return (String) token;
+    }
+
+    private static HttpResponse<String> requestLogin(String email, String password) {
+        String loginUrl = getLoginUrl();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(loginUrl))
+                .timeout(Duration.ofSeconds(configReader.getIntProperty("auth.api.timeout.seconds", 15)))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.toJson(Map.of("email", email, "password", password))))
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new IllegalStateException("Auth endpoint " + loginUrl + " unreachable: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while signing in " + email, e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Auth endpoint rejected " + email + ": HTTP " + response.statusCode());
+        }
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parseBody(HttpResponse<String> response) {
+        return JSON.toType(response.body(), Map.class);
+    }
+
+    private static String getLoginUrl() {
+        if (configReader.getBooleanProperty("auth.stub.enabled", false)) {
+            return StubAuthServer.start();
+        }
+        String url = configReader.getProperty("auth.api.url", "");
+        if (url.isBlank()) {
+            throw new IllegalStateException("auth.api.url is not set");
+        }
+        return url;
+    }
+
+    private static Cookie toSeleniumCookie(HttpCookie cookie) {
+        Cookie.Builder builder = new Cookie.Builder(cookie.getName(), cookie.getValue())
+                .path(cookie.getPath() != null ? cookie.getPath() : "/")
+                .isSecure(cookie.getSecure())
+                .isHttpOnly(cookie.isHttpOnly());
+        if (cookie.getDomain() != null) {
+            builder.domain(cookie.getDomain());
+        }
+        if (cookie.getMaxAge() > 0) {
+            builder.expiresOn(new Date(System.currentTimeMillis() + cookie.getMaxAge() * 1000));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the HTTP client shared by the API helpers
+     *
+     * @return HttpClient
+     */
+    static HttpClient getHttpClient() {
+        if (httpClient == null) {
+            synchronized (ApiLogin.class) {
+                if (httpClient == null) {
+                    httpClient = HttpClient.newBuilder()
+                            .connectTimeout(Duration.ofSeconds(configReader.getIntProperty("auth.api.timeout.seconds", 15)))
+                            .followRedirects(HttpClient.Redirect.NORMAL)
+                            .build();
+                }
+            }
+        }
+        return httpClient;
+    }
+}
@@ -0,0 +1,158 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * AppReadiness class decides when the MTOmics single-page app is usable:
+ * the router has mounted into the root element, there are no pending
+ * fetch/XHR requests and no loading spinner is visible. Paired with the
+ * EAGER or NONE page-load strategy, navigation returns as soon as the page
+ * can be used instead of waiting for every subresource
+ */
+public class AppReadiness {
+
+    private static final Logger logger = LogManager.getLogger(AppReadiness.class);
+    private static final ConfigReader configReader = new ConfigReader();
+
+    // Counts in-flight fetch/XHR requests, skipping URLs matched by the ignore pattern (analytics, long polling)
+    private static final String INSTRUMENTATION_SCRIPT =
+            "(function (ignore) {"
+                    + "  if (window.__mtomicsPending !== undefined) { return; }"
+                    + "  window.__mtomicsPending = 0;"
+                    + "  var skip = function (url) { return ignore && new RegExp(ignore).test(String(url)); };"
+                    + "  if (window.fetch) {"
+                    + "    var originalFetch = window.fetch;"
+                    + "    window.fetch = function (input) {"
+                    + "      var url = input && input.url ? input.url : input;"
+                    + "      if (skip(url)) { return originalFetch.apply(this, arguments); }"
+                    + "      window.__mtomicsPending++;"
+                    + "      return originalFetch.apply(this, arguments).finally(function () { window.__mtomicsPending--; });"
+                    + "    };"
+                    + "  }"
+                    + "  var originalOpen = XMLHttpRequest.prototype.open;"
+                    + "  XMLHttpRequest.prototype.open = function (method, url) {"
+                    + "    this.__mtomicsSkip = skip(url);"
+                    + "    return originalOpen.apply(this, arguments);"
+                    + "  };"
+                    + "  var originalSend = XMLHttpRequest.prototype.send;"
+                    + "  XMLHttpRequest.prototype.send = function () {"
+                    + "    if (!this.__mtomicsSkip) {"
+                    + "      window.__mtomicsPending++;"
+                    + "      this.addEventListener('loadend', function () { window.__mtomicsPending--; });"
+                    + "    }"
+                    + "    return originalSend.apply(this, arguments);"
+                    + "  };"
+                    + "})(%s);";
+
+    private static final String READINESS_SCRIPT =
+            "var root = arguments[0], spinner = arguments[1];"
+                    + "if (document.readyState === 'loading') { return 'document loading'; }"
+                    + "var mount = document.querySelector(root);"
+                    + "if (!mount || mount.childElementCount === 0) { return 'router not mounted'; }"
+                    + "if (window.__mtomicsPending === undefined) { return 'request tracking not installed'; }"
+                    + "if (window.__mtomicsPending > 0) { return window.__mtomicsPending + ' request(s) pending'; }"
+                    + "var spinners = spinner ? document.querySelectorAll(spinner) : [];"
+                    + "for (var i = 0; i < spinners.length; i++) {"
+                    + "  if (spinners[i].getClientRects().length > 0) { return 'loading indicator visible'; }"
+                    + "}"
+                    + "return 'ready';";
+
+    /**
+     * Get configured page-load strategy
+     *
+     * @return PageLoadStrategy, NORMAL when not configured
+     */
+    public static PageLoadStrategy getPageLoadStrategy() {
+        String value = configReader.getProperty("page.load.strategy", "normal");
+        try {
+            return PageLoadStrategy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown page.load.strategy '{}'. Using NORMAL", value);
+            return PageLoadStrategy.NORMAL;
+        }
+    }
+
+    /**
+     * Check if navigation should wait for app readiness instead of the full page load
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return getPageLoadStrategy() != PageLoadStrategy.NORMAL;
+    }
+
+    /**
+     * Register the request tracker to run before any page script on every document (Chromium only)
+     *
+     * @param driver WebDriver instance
+     */
+    public static void install(WebDriver driver) {
+        if (isEnabled() && driver instanceof HasCdp) {
+            ((HasCdp) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument",
+                    Map.of("source", instrumentationScript()));
+            logger.debug("App readiness request tracker installed");
+        }
+    }
+
+    /**
+     * Navigate to a URL and return once the app is usable
+     * On a planned driver the load is deferred, and the wait happens when the load does
+     *
+     * @param driver WebDriver instance
+     * @param url    URL to navigate to
+     */
+    public static void navigate(WebDriver driver, String url) {
+        driver.get(url);
+        if (!NavigationPlanner.isPlanned(driver)) {
+            waitUntilReady(driver);
+        }
+    }
+
+    /**
+     * Wait until the app is usable, giving up quietly after the explicit wait
+     * so the step's own waits still decide pass or fail
+     *
+     * @param driver WebDriver instance
+     */
+    public static void waitUntilReady(WebDriver driver) {
+        if (!isEnabled()) {
+            return;
+        }
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        String root = configReader.getProperty("app.root.selector", "#root");
+        String spinner = configReader.getProperty("app.loading.selector", "");
+        AtomicReference<Object> state = new AtomicReference<>();
+        long start = System.currentTimeMillis();
+        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(configReader.getIntProperty("explicit.wait", 20)));
+        wait.pollingEvery(Duration.ofMillis(100));
+        try {
+            wait.until(d -> {
+                // Browsers without CDP, or pages loaded before install(), get the tracker late
+                js.executeScript(instrumentationScript());
+                state.set(js.executeScript(READINESS_SCRIPT, root, spinner));
+                return "ready".equals(state.get());
+            });
+            logger.debug("App ready after {}ms", System.currentTimeMillis() - start);
+        } catch (TimeoutException e) {
+            logger.warn("App not ready after {}ms ({}), continuing", System.currentTimeMillis() - start, state.get());
+        }
+    }
+
+    private static String instrumentationScript() {
+        String ignore = configReader.getProperty("app.ready.ignore.urls", "");
+        String literal = ignore.isBlank() ? "null"
+                : "'" + ignore.replace("\\", "\\\\").replace("'", "\\'") + "'";
+        return String.format(INSTRUMENTATION_SCRIPT, literal);
+    }
+}
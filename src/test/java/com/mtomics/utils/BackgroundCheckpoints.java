@@ -0,0 +1,219 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * BackgroundCheckpoints class memoizes the Background of features tagged
+ * @checkpoint. The first scenario to finish the Background saves the page
+ * URL, cookies, web storage and scenario data; later scenarios of the feature
+ * that lease the same accounts get that state restored instead of running
+ * the Background steps again. Whenever a restore is impossible or fails the
+ * Background is replayed in full
+ */
+public class BackgroundCheckpoints {
+
+    private static final Logger logger = LogManager.getLogger(BackgroundCheckpoints.class);
+    public static final String CHECKPOINT_TAG = "@checkpoint";
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final Pattern STEP_LINE = Pattern.compile("^(Given|When|Then|And|But|\\*)\\s.*");
+    private static final Map<URI, Integer> backgroundSteps = new ConcurrentHashMap<>();
+    private static final Map<URI, List<String>> backgroundRoles = new ConcurrentHashMap<>();
+    private static final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+    /**
+     * State of the browser and scenario right after a feature's Background
+     */
+    public static class Checkpoint {
+        private final SessionCache.Session state;
+        private final Map<String, Object> data;
+
+        Checkpoint(SessionCache.Session state, Map<String, Object> data) {
+            this.state = state;
+            this.data = data;
+        }
+
+        /**
+         * Get the scenario data the Background stored
+         *
+         * @return Scenario context entries
+         */
+        public Map<String, Object> getData() {
+            return data;
+        }
+    }
+
+    /**
+     * Check if a scenario's Background is memoized
+     *
+     * @param tags Scenario tags, including inherited feature tags
+     * @return boolean
+     */
+    public static boolean isEnabled(Collection<String> tags) {
+        return tags.contains(CHECKPOINT_TAG)
+                && configReader.getBooleanProperty("background.checkpoints.enabled", false);
+    }
+
+    /**
+     * Get the number of steps of a feature's Background
+     *
+     * @param feature Feature URI
+     * @return Step count, 0 when there is no feature-level Background or it cannot be read
+     */
+    public static int getBackgroundStepCount(URI feature) {
+        return backgroundSteps.computeIfAbsent(feature, BackgroundCheckpoints::countBackgroundSteps);
+    }
+
+    /**
+     * Get the account roles a feature's Background leases, known once a checkpoint exists
+     *
+     * @param feature Feature URI
+     * @return Roles in lease order, or null if no checkpoint has been saved for the feature
+     */
+    public static List<String> getRoles(URI feature) {
+        return backgroundRoles.get(feature);
+    }
+
+    /**
+     * Find the checkpoint of a feature for the accounts a scenario holds
+     *
+     * @param feature  Feature URI
+     * @param accounts Accounts leased for the scenario
+     * @return Checkpoint, or null if there is none or it has expired
+     */
+    public static Checkpoint find(URI feature, Collection<AccountPool.Account> accounts) {
+        String key = key(feature, accounts);
+        Checkpoint checkpoint = checkpoints.get(key);
+        if (checkpoint == null) {
+            return null;
+        }
+        String reason = checkpoint.state.expiryReason(
+                configReader.getLongProperty("background.checkpoint.ttl.minutes", 30) * 60_000);
+        if (reason != null) {
+            logger.info("Background checkpoint of {} expired ({})", key, reason);
+            checkpoints.remove(key, checkpoint);
+            return null;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Save the state right after a feature's Background, unless one is already saved
+     *
+     * @param feature  Feature URI
+     * @param accounts Accounts leased by the Background
+     * @param data     Scenario context entries set by the Background
+     * @param driver   WebDriver instance
+     */
+    public static void save(URI feature, Collection<AccountPool.Account> accounts, Map<String, Object> data,
+            WebDriver driver) {
+        String key = key(feature, accounts);
+        if (checkpoints.containsKey(key)) {
+            return;
+        }
+        try {
+            checkpoints.putIfAbsent(key, new Checkpoint(SessionCache.snapshot(driver), new HashMap<>(data)));
+            backgroundRoles.putIfAbsent(feature,
+                    accounts.stream().map(AccountPool.Account::getRole).collect(Collectors.toList()));
+            logger.info("Saved Background checkpoint of {}", key);
+        } catch (Exception e) {
+            logger.warn("Failed to save Background checkpoint of {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Put a browser into the checkpoint's state
+     * On failure the browser's cookies and storage are cleared again, ready for a full replay
+     *
+     * @param checkpoint Checkpoint
+     * @param driver     WebDriver instance
+     * @return true if the app accepted the restored state
+     */
+    public static boolean restore(Checkpoint checkpoint, WebDriver driver) {
+        try {
+            if (SessionCache.restore(driver, checkpoint.state)) {
+                return true;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to restore Background checkpoint: {}", e.getMessage());
+        }
+        try {
+            driver.manage().deleteAllCookies();
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        } catch (Exception e) {
+            logger.debug("Failed to clear browser state after a failed restore: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private static String key(URI feature, Collection<AccountPool.Account> accounts) {
+        return feature + accounts.stream().map(AccountPool.Account::getEmail).sorted()
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static int countBackgroundSteps(URI feature) {
+        try {
+            int steps = 0;
+            boolean inBackground = false;
+            for (String line : readFeature(feature)) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("Rule:")) {
+                    // Rule-level Backgrounds change per rule; not memoized
+                    return 0;
+                }
+                if (trimmed.startsWith("Background:")) {
+                    inBackground = true;
+                } else if (trimmed.startsWith("Scenario") || trimmed.startsWith("Example") || trimmed.startsWith("@")) {
+                    if (inBackground) {
+                        break;
+                    }
+                } else if (inBackground && STEP_LINE.matcher(trimmed).matches()) {
+                    steps++;
+                }
+            }
+            return inBackground ? steps : 0;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot read Background of {}: {}", feature, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static List<String> readFeature(URI feature) throws IOException {
+        if (!"classpath".equals(feature.getScheme())) {
+            return Files.readAllLines(Paths.get(feature), StandardCharsets.UTF_8);
+        }
+        String resource = feature.getSchemeSpecificPart().replaceFirst("^/", "");
+        InputStream in = BackgroundCheckpoints.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Feature resource not found: " + resource);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,254 @@
+package com.mtomics.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * BrowserProfileTemplate class builds a warmed Chrome user-data-dir once per
+ * run (application bundle, fonts and service worker already cached, cookie
+ * banner accepted) and gives every session its own copy of it. The copy is a
+ * copy-on-write reflink where the filesystem supports it (btrfs, XFS); elsewhere
+ * every byte of the profile is copied for each session
+ */
+public class BrowserProfileTemplate {
+
+    private static final Logger logger = LogManager.getLogger(BrowserProfileTemplate.class);
+
+    // Chrome refuses to start on a profile that still carries another process' lock
+    private static final Set<String> LOCK_FILES = Set.of("SingletonLock", "SingletonSocket", "SingletonCookie", "lockfile");
+
+    private static final Map<WebDriver, Path> clones = new ConcurrentHashMap<>();
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final ReentrantLock TEMPLATE_LOCK = new ReentrantLock();
+    private static volatile Path template;
+    private static volatile boolean reflinkUnavailable;
+
+    /**
+     * Check if profile templates are enabled
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return configReader.getBooleanProperty("browser.profile.template.enabled", false);
+    }
+
+    /**
+     * Create a fresh clone of the warmed template, building the template on first use
+     * Every file is copied: Chromium rewrites cache indexes in place, so no file may be shared.
+     * cp --reflink=auto shares the blocks until either side writes them, and copies in full
+     * where the filesystem cannot; without GNU cp the files are copied one by one
+     *
+     * @param baseOptions Options the template browser is launched with
+     * @param launcher    Starts a tracked Chrome session, as for any other browser
+     * @return Path of the cloned user-data-dir
+     */
+    public static Path createClone(ChromeOptions baseOptions, Function<ChromeOptions, WebDriver> launcher) {
+        Path source = getTemplate(baseOptions, launcher);
+        Path clone = profileRoot().resolve("session-" + UUID.randomUUID());
+        long start = System.currentTimeMillis();
+        if (reflinkClone(source, clone)) {
+            logger.debug("Reflinked browser profile template in {}ms: {}", System.currentTimeMillis() - start, clone);
+            return clone;
+        }
+        try (Stream<Path> files = Files.walk(source)) {
+            files.forEach(file -> cloneEntry(source, file, clone));
+        } catch (IOException | UncheckedIOException e) {
+            FileUtils.deleteQuietly(clone.toFile());
+            throw new IllegalStateException("Failed to clone browser profile template", e);
+        }
+        logger.debug("Cloned browser profile template in {}ms: {}", System.currentTimeMillis() - start, clone);
+        return clone;
+    }
+
+    /**
+     * Associate a cloned profile with the browser using it
+     *
+     * @param driver WebDriver instance
+     * @param clone  Cloned user-data-dir
+     */
+    public static void register(WebDriver driver, Path clone) {
+        clones.put(driver, clone);
+    }
+
+    /**
+     * Delete a cloned profile directory
+     *
+     * @param clone Cloned user-data-dir
+     */
+    public static void deleteClone(Path clone) {
+        FileUtils.deleteQuietly(clone.toFile());
+    }
+
+    /**
+     * Delete the cloned profile of a browser that has quit
+     *
+     * @param driver WebDriver instance
+     */
+    public static void deleteClone(WebDriver driver) {
+        Path clone = clones.remove(driver);
+        if (clone != null) {
+            deleteClone(clone);
+        }
+    }
+
+    private static Path getTemplate(ChromeOptions baseOptions, Function<ChromeOptions, WebDriver> launcher) {
+        if (template == null) {
+            TEMPLATE_LOCK.lock();
+            try {
+                if (template == null) {
+                    template = buildTemplate(baseOptions, launcher);
+                    Path built = template;
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtils.deleteQuietly(built.toFile()),
+                            "browser-profile-template-cleanup"));
+                }
+            } finally {
+                TEMPLATE_LOCK.unlock();
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Launch a browser on an empty profile, load the application and let its caches fill
+     * Each JVM builds its own template, so sharded forks never rebuild one another's while it is cloned
+     *
+     * @param baseOptions Options the template browser is launched with
+     * @param launcher    Starts a tracked Chrome session
+     * @return Path of the template user-data-dir
+     */
+    private static Path buildTemplate(ChromeOptions baseOptions, Function<ChromeOptions, WebDriver> launcher) {
+        Path dir = profileRoot().resolve("template-" + ProcessHandle.current().pid());
+        FileUtils.deleteQuietly(dir.toFile());
+        long start = System.currentTimeMillis();
+        logger.info("Building warmed browser profile template: {}", dir);
+
+        ChromeOptions options = new ChromeOptions().merge(baseOptions);
+        options.addArguments("--user-data-dir=" + dir.toAbsolutePath());
+        WebDriver driver = launcher.apply(options);
+        try {
+            driver.manage().timeouts().pageLoadTimeout(
+                    Duration.ofSeconds(configReader.getIntProperty("page.load.timeout", 30)));
+            driver.get(configReader.getBaseUrl());
+            waitForServiceWorker(driver);
+            acceptCookieBanner(driver);
+            // Give background fetches (fonts, lazy chunks) time to land in the HTTP cache
+            Thread.sleep(configReader.getLongProperty("browser.profile.warmup.seconds", 5) * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Browser profile warm-up incomplete: {}", e.getMessage());
+        } finally {
+            // Quitting flushes the caches to disk
+            try {
+                driver.quit();
+            } catch (Exception e) {
+                logger.warn("Profile template browser did not quit: {}", e.getMessage());
+                DriverProcessTracker.getProcess(driver).ifPresent(DriverProcessTracker::killTree);
+            } finally {
+                DriverProcessTracker.unregister(driver);
+            }
+        }
+        for (String lock : LOCK_FILES) {
+            FileUtils.deleteQuietly(dir.resolve(lock).toFile());
+        }
+        logger.info("Browser profile template built in {}ms", System.currentTimeMillis() - start);
+        return dir;
+    }
+
+    private static void waitForServiceWorker(WebDriver driver) {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(15));
+        Object state = js.executeAsyncScript(
+                "var done = arguments[arguments.length - 1];"
+                        + "if (!('serviceWorker' in navigator)) { done('unsupported'); return; }"
+                        + "var timer = setTimeout(function () { done('timeout'); }, 10000);"
+                        + "navigator.serviceWorker.ready.then(function () { clearTimeout(timer); done('ready'); });");
+        logger.debug("Service worker state during profile warm-up: {}", state);
+    }
+
+    private static void acceptCookieBanner(WebDriver driver) {
+        String xpath = configReader.getProperty("browser.profile.cookie.accept.xpath", "");
+        if (xpath.isBlank()) {
+            return;
+        }
+        List<WebElement> buttons = driver.findElements(By.xpath(xpath));
+        if (!buttons.isEmpty() && buttons.get(0).isDisplayed()) {
+            buttons.get(0).click();
+            logger.info("Accepted cookie banner in profile template");
+        }
+    }
+
+    /**
+     * Clone the template with cp --reflink=auto, remembering when cp cannot do it
+     *
+     * @param source Template user-data-dir
+     * @param clone  Clone user-data-dir, must not exist yet
+     * @return true if the clone was made
+     */
+    private static boolean reflinkClone(Path source, Path clone) {
+        if (reflinkUnavailable || !configReader.getBooleanProperty("browser.profile.reflink.enabled", true)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(clone.getParent());
+            Process cp = new ProcessBuilder("cp", "-R", "--reflink=auto", source.toString(), clone.toString())
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(cp.getInputStream().readAllBytes()).trim();
+            if (cp.waitFor() != 0) {
+                throw new IOException(output);
+            }
+            for (String lock : LOCK_FILES) {
+                Files.deleteIfExists(clone.resolve(lock));
+            }
+            return true;
+        } catch (IOException e) {
+            // Not GNU cp (macOS, Windows): copy file by file from now on
+            reflinkUnavailable = true;
+            logger.info("cp --reflink unavailable, copying browser profiles file by file: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        FileUtils.deleteQuietly(clone.toFile());
+        return false;
+    }
+
+    private static void cloneEntry(Path source, Path file, Path clone) {
+        Path relative = source.relativize(file);
+        Path target = clone.resolve(relative.toString());
+        try {
+            if (Files.isDirectory(file)) {
+                Files.createDirectories(target);
+            } else if (!LOCK_FILES.contains(file.getFileName().toString())) {
+                Files.copy(file, target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path profileRoot() {
+        return Paths.get(configReader.getProperty("browser.profile.dir", "target/browser-profiles"));
+    }
+}
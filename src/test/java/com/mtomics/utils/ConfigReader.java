@@ -13,7 +13,7 @@ import java.util.Properties;
 public class ConfigReader {
 
     private static final Logger logger = LogManager.getLogger(ConfigReader.class);
-    private static Properties properties;
+    private static volatile Properties properties;
     private static final String CONFIG_FILE_PATH = "src/test/resources/config/config.properties";
 
     /**
@@ -27,11 +27,16 @@ public class ConfigReader {
 
     /**
      * Load properties from config file
+     * Synchronized so parallel scenario threads load the file exactly once
      */
-    private void loadProperties() {
-        properties = new Properties();
+    private static synchronized void loadProperties() {
+        if (properties != null) {
+            return;
+        }
+        Properties loaded = new Properties();
         try (FileInputStream fis = new FileInputStream(CONFIG_FILE_PATH)) {
-            properties.load(fis);
+            loaded.load(fis);
+            properties = loaded;
             logger.info("Configuration loaded successfully from {}", CONFIG_FILE_PATH);
         } catch (IOException e) {
             logger.error("Failed to load configuration file: {}", e.getMessage());
@@ -41,12 +46,13 @@ public class ConfigReader {
 
     /**
      * Get property value by key
+     * System properties (-Dkey=value) take precedence over the config file
      * 
      * @param key Property key
      * @return Property value
      */
     public String getProperty(String key) {
-        String value = properties.getProperty(key);
+        String value = System.getProperty(key, properties.getProperty(key));
         if (value == null) {
             logger.warn("Property '{}' not found in configuration", key);
         }
@@ -61,7 +67,62 @@ public class ConfigReader {
      * @return Property value or default
      */
     public String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
+    }
+
+    /**
+     * Get integer property value with default
+     * 
+     * @param key          Property key
+     * @param defaultValue Default value if key not found
+     * @return Property value or default
+     */
+    public int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Property '{}' is not a valid integer: {}. Using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get long property value with default
+     * 
+     * @param key          Property key
+     * @param defaultValue Default value if key not found
+     * @return Property value or default
+     */
+    public long getLongProperty(String key, long defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Property '{}' is not a valid number: {}. Using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get boolean property value with default
+     * 
+     * @param key          Property key
+     * @param defaultValue Default value if key not found
+     * @return Property value or default
+     */
+    public boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
     }
 
     /**
@@ -0,0 +1,278 @@
+package com.mtomics.utils;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DriverBinaryResolver class resolves browser driver binaries once per JVM
+ * and once per machine through a local cache keyed by browser version.
+ * A cache hit never touches the network, so runs work fully offline once the
+ * cache has been filled
+ */
+public class DriverBinaryResolver {
+
+    private static final Logger logger = LogManager.getLogger(DriverBinaryResolver.class);
+    private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+(\\.\\d+)+)");
+    private static final String DEFAULT_CACHE_FILE = System.getProperty("user.home")
+            + "/.cache/mtomics-automation/driver-binaries.properties";
+
+    private static final Map<String, String> resolvedPaths = new ConcurrentHashMap<>();
+    private static final Map<String, Long> resolutionCosts = new ConcurrentHashMap<>();
+    private static final AtomicInteger lookups = new AtomicInteger();
+    private static final AtomicInteger onlineResolutions = new AtomicInteger();
+    private static final AtomicLong savedMillis = new AtomicLong();
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final ReentrantLock RESOLVE_LOCK = new ReentrantLock();
+
+    /**
+     * Resolve the driver binary for a browser and register it with Selenium
+     *
+     * @param browser Browser name (chrome, firefox, edge)
+     * @return Driver binary path
+     */
+    public static String resolve(String browser) {
+        lookups.incrementAndGet();
+        String key = browser.toLowerCase();
+        String known = resolvedPaths.get(key);
+        if (known != null) {
+            savedMillis.addAndGet(lastResolutionCost(key));
+            return known;
+        }
+        // ReentrantLock rather than synchronized: resolution may download, and must not pin virtual threads
+        RESOLVE_LOCK.lock();
+        try {
+            known = resolvedPaths.get(key);
+            if (known == null) {
+                known = resolveForMachine(key);
+                System.setProperty(driverSystemProperty(key), known);
+                resolvedPaths.put(key, known);
+            } else {
+                savedMillis.addAndGet(lastResolutionCost(key));
+            }
+        } finally {
+            RESOLVE_LOCK.unlock();
+        }
+        return known;
+    }
+
+    /**
+     * Resolve through the persisted cache, falling back to WebDriverManager
+     *
+     * @param browser Browser name
+     * @return Driver binary path
+     */
+    private static String resolveForMachine(String browser) {
+        long start = System.currentTimeMillis();
+        boolean offline = configReader.getBooleanProperty("driver.binary.offline", false);
+        String browserVersion = detectBrowserVersion(browser);
+        Properties cache = loadCache();
+        resolutionCosts.put(browser, parseCost(cache.getProperty(browser + ".resolve.millis")));
+
+        String cachedPath = browserVersion != null ? cache.getProperty(browser + "." + browserVersion + ".path") : null;
+        if (cachedPath == null && offline) {
+            // Browser version could not be detected: any cached binary for this browser is better than failing
+            cachedPath = cache.getProperty(browser + ".last.path");
+        }
+        if (cachedPath != null && Files.isExecutable(Paths.get(cachedPath))) {
+            long hitCost = System.currentTimeMillis() - start;
+            savedMillis.addAndGet(Math.max(0, lastResolutionCost(browser) - hitCost));
+            logger.info("Using cached {} driver for browser version {}: {}", browser, browserVersion, cachedPath);
+            return cachedPath;
+        }
+        if (offline) {
+            throw new IllegalStateException("No cached " + browser + " driver for browser version "
+                    + browserVersion + " and driver.binary.offline=true");
+        }
+
+        WebDriverManager manager = managerFor(browser);
+        if (browserVersion != null) {
+            manager.browserVersion(browserVersion);
+        }
+        manager.setup();
+        String driverPath = manager.getDownloadedDriverPath();
+        long cost = System.currentTimeMillis() - start;
+        resolutionCosts.put(browser, cost);
+        onlineResolutions.incrementAndGet();
+        logger.info("Resolved {} driver {} in {}ms: {}", browser, manager.getDownloadedDriverVersion(), cost, driverPath);
+
+        if (browserVersion != null) {
+            cache.setProperty(browser + "." + browserVersion + ".path", driverPath);
+            cache.setProperty(browser + "." + browserVersion + ".driverVersion",
+                    String.valueOf(manager.getDownloadedDriverVersion()));
+        }
+        cache.setProperty(browser + ".last.path", driverPath);
+        cache.setProperty(browser + ".resolve.millis", String.valueOf(cost));
+        storeCache(cache);
+        return driverPath;
+    }
+
+    /**
+     * Detect installed browser version by asking the browser or the registry
+     *
+     * @param browser Browser name
+     * @return Version string or null if it cannot be detected
+     */
+    static String detectBrowserVersion(String browser) {
+        String configured = configReader.getProperty(browser + ".version", null);
+        if (configured != null && !configured.isBlank()) {
+            return configured.trim();
+        }
+        boolean windows = System.getProperty("os.name").toLowerCase().contains("win");
+        boolean mac = System.getProperty("os.name").toLowerCase().contains("mac");
+        for (List<String> command : versionCommands(browser, windows, mac)) {
+            String version = runForVersion(command);
+            if (version != null) {
+                return version;
+            }
+        }
+        logger.warn("Could not detect installed {} version", browser);
+        return null;
+    }
+
+    private static List<List<String>> versionCommands(String browser, boolean windows, boolean mac) {
+        switch (browser) {
+            case "firefox":
+                if (windows) {
+                    return List.of(List.of("reg", "query", "HKLM\\SOFTWARE\\Mozilla\\Mozilla Firefox", "/v", "CurrentVersion"));
+                }
+                return mac
+                        ? List.of(List.of("/Applications/Firefox.app/Contents/MacOS/firefox", "--version"))
+                        : List.of(List.of("firefox", "--version"));
+            case "edge":
+                if (windows) {
+                    return List.of(List.of("reg", "query", "HKCU\\Software\\Microsoft\\Edge\\BLBeacon", "/v", "version"));
+                }
+                return mac
+                        ? List.of(List.of("/Applications/Microsoft Edge.app/Contents/MacOS/Microsoft Edge", "--version"))
+                        : List.of(List.of("microsoft-edge", "--version"), List.of("microsoft-edge-stable", "--version"));
+            default:
+                if (windows) {
+                    return List.of(List.of("reg", "query", "HKCU\\Software\\Google\\Chrome\\BLBeacon", "/v", "version"));
+                }
+                return mac
+                        ? List.of(List.of("/Applications/Google Chrome.app/Contents/MacOS/Google Chrome", "--version"))
+                        : List.of(List.of("google-chrome", "--version"), List.of("google-chrome-stable", "--version"),
+                                List.of("chromium", "--version"), List.of("chromium-browser", "--version"));
+        }
+    }
+
+    private static String runForVersion(List<String> command) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            Matcher matcher = VERSION_PATTERN.matcher(output);
+            return process.exitValue() == 0 && matcher.find() ? matcher.group(1) : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static WebDriverManager managerFor(String browser) {
+        switch (browser) {
+            case "firefox":
+                return WebDriverManager.firefoxdriver();
+            case "edge":
+                return WebDriverManager.edgedriver();
+            default:
+                return WebDriverManager.chromedriver();
+        }
+    }
+
+    private static String driverSystemProperty(String browser) {
+        switch (browser) {
+            case "firefox":
+                return "webdriver.gecko.driver";
+            case "edge":
+                return "webdriver.edge.driver";
+            default:
+                return "webdriver.chrome.driver";
+        }
+    }
+
+    /**
+     * Cost of the last online resolution, i.e. what a lookup saves by not repeating it
+     */
+    private static long lastResolutionCost(String browser) {
+        return resolutionCosts.getOrDefault(browser, 0L);
+    }
+
+    private static long parseCost(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Path cacheFile() {
+        return Paths.get(configReader.getProperty("driver.binary.cache.file", DEFAULT_CACHE_FILE));
+    }
+
+    private static Properties loadCache() {
+        Properties cache = new Properties();
+        Path file = cacheFile();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                cache.load(in);
+            } catch (IOException e) {
+                logger.warn("Failed to read driver binary cache {}: {}", file, e.getMessage());
+            }
+        }
+        return cache;
+    }
+
+    private static void storeCache(Properties cache) {
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            // Write then move so concurrent forks never read a half-written file
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "driver-binaries", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                cache.store(out, "Resolved browser driver binaries keyed by browser version");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write driver binary cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Log how many lookups this run made and the resolution time the cache saved
+     */
+    public static void logSummary() {
+        if (lookups.get() > 0) {
+            logger.info("Driver binary resolution: {} lookup(s), {} online resolution(s), ~{}ms saved this run",
+                    lookups.get(), onlineResolutions.get(), savedMillis.get());
+        }
+    }
+}
@@ -1,33 +1,169 @@
 package com.mtomics.utils;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeDriverService;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * DriverManager class handles WebDriver initialization and management
  * Implements ThreadLocal for parallel execution support
+ * When driver.pool.enabled=true, browsers are borrowed from a warm DriverPool
+ * instead of being launched and quit for every scenario
+ * When driver.prelaunch.enabled=true, the next browser is launched in the
+ * background while the current scenario runs
+ * When driver.reaper.enabled=true, browsers are quit on a background reaper
+ * When remote.url is set, sessions are opened on that Selenium Grid / node
+ * A browser-matrix run assigns each scenario thread its browser; pools and
+ * pre-launchers are kept per browser and shared by all threads of that browser
+ * The session is kept in a ThreadLocal, which also holds per scenario on virtual threads
  */
 public class DriverManager {
 
     private static final Logger logger = LogManager.getLogger(DriverManager.class);
     private static ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    private static ThreadLocal<String> scenarioBrowser = new ThreadLocal<>();
     private static ConfigReader configReader = new ConfigReader();
+    private static final Map<String, DriverPool> driverPools = new ConcurrentHashMap<>();
+    private static final Map<String, DriverPrelauncher> prelaunchers = new ConcurrentHashMap<>();
+    private static volatile DriverReaper reaper;
 
     /**
      * Initialize WebDriver based on browser configuration
      */
     public static void initializeDriver() {
-        String browser = configReader.getProperty("browser");
+        String browser = getBrowser();
+        if (isPoolEnabled()) {
+            driver.set(getPool(browser).acquire());
+            return;
+        }
+        driver.set(newSession(browser));
+    }
+
+    /**
+     * Assign the browser used by scenarios on the current thread (browser-matrix runs)
+     * 
+     * @param browser Browser name, or null to fall back to the browser property
+     */
+    public static void setBrowser(String browser) {
+        if (browser == null) {
+            scenarioBrowser.remove();
+        } else {
+            scenarioBrowser.set(browser.trim().toLowerCase());
+        }
+    }
+
+    /**
+     * Get the browser used by scenarios on the current thread
+     * 
+     * @return Browser assigned by the browser matrix, else the browser property
+     */
+    public static String getBrowser() {
+        String browser = scenarioBrowser.get();
+        return browser != null ? browser : configReader.getProperty("browser").trim().toLowerCase();
+    }
+
+    /**
+     * Check if the current thread runs a scenario of a browser-matrix run
+     * 
+     * @return boolean
+     */
+    public static boolean isMatrixScenario() {
+        return scenarioBrowser.get() != null;
+    }
+
+    /**
+     * Get a new browser session, pre-launched when look-ahead is enabled
+     * 
+     * @param browser Browser name
+     * @return WebDriver instance
+     */
+    static WebDriver newSession(String browser) {
+        if (configReader.getBooleanProperty("driver.prelaunch.enabled", false)) {
+            return getPrelauncher(browser).take();
+        }
+        return createDriver(browser);
+    }
+
+    /**
+     * Get the shared pre-launcher of a browser, creating it on first use
+     * 
+     * @param browser Browser name
+     * @return DriverPrelauncher instance
+     */
+    private static DriverPrelauncher getPrelauncher(String browser) {
+        return prelaunchers.computeIfAbsent(browser, name -> {
+            DriverPrelauncher prelauncher = new DriverPrelauncher(
+                    configReader.getIntProperty("driver.prelaunch.depth", 1),
+                    () -> createDriver(name),
+                    DriverManager::destroyDriver);
+            Runtime.getRuntime().addShutdownHook(new Thread(prelauncher::shutdown, "driver-prelaunch-shutdown-" + name));
+            return prelauncher;
+        });
+    }
+
+    /**
+     * Check if pooled mode is enabled
+     * 
+     * @return boolean
+     */
+    public static boolean isPoolEnabled() {
+        return configReader.getBooleanProperty("driver.pool.enabled", false);
+    }
+
+    /**
+     * Get the shared driver pool of a browser, creating it on first use
+     * driver.pool.size.<browser> overrides driver.pool.size for that browser
+     * 
+     * @param browser Browser name
+     * @return DriverPool instance
+     */
+    private static DriverPool getPool(String browser) {
+        return driverPools.computeIfAbsent(browser, name -> {
+            DriverPool driverPool = new DriverPool(
+                    configReader.getIntProperty("driver.pool.size." + name,
+                            configReader.getIntProperty("driver.pool.size", 2)),
+                    configReader.getLongProperty("driver.pool.max.idle.seconds", 300) * 1000,
+                    configReader.getLongProperty("driver.pool.acquire.timeout.seconds", 120) * 1000,
+                    DriverPool.ResetPolicy.fromConfig(configReader.getProperty("driver.pool.reset.policy", "full")),
+                    configReader.getIntProperty("driver.recycle.max.scenarios", 0),
+                    configReader.getLongProperty("driver.recycle.max.rss.mb", 0) * 1024 * 1024,
+                    configReader.getBaseUrl(),
+                    () -> newSession(name),
+                    DriverManager::destroyDriver);
+            Runtime.getRuntime().addShutdownHook(new Thread(driverPool::shutdown, "driver-pool-shutdown-" + name));
+            return driverPool;
+        });
+    }
+
+    /**
+     * Launch a new browser
+     * 
+     * @param browser Browser name (chrome, firefox or edge)
+     * @return WebDriver instance
+     */
+    static WebDriver createDriver(String browser) {
         boolean headless = Boolean.parseBoolean(configReader.getProperty("headless"));
         boolean maximize = Boolean.parseBoolean(configReader.getProperty("maximize"));
 
@@ -38,8 +174,8 @@ public class DriverManager {
 
             switch (browser.toLowerCase()) {
                 case "chrome":
-                    WebDriverManager.chromedriver().setup();
                     ChromeOptions chromeOptions = new ChromeOptions();
+                    chromeOptions.setPageLoadStrategy(AppReadiness.getPageLoadStrategy());
                     if (headless) {
                         chromeOptions.addArguments("--headless=new");
                     }
@@ -48,31 +184,73 @@ public class DriverManager {
                     chromeOptions.addArguments("--disable-dev-shm-usage");
                     chromeOptions.addArguments("--no-sandbox");
                     chromeOptions.addArguments("--remote-allow-origins=*");
-                    webDriver = new ChromeDriver(chromeOptions);
+                    if (isRemote()) {
+                        webDriver = startRemote(chromeOptions);
+                        break;
+                    }
+                    DriverBinaryResolver.resolve("chrome");
+                    if (SharedBrowserContexts.isEnabled()) {
+                        webDriver = SharedBrowserContexts.openContext(chromeOptions, DriverManager::launchChrome);
+                        break;
+                    }
+                    Path profileClone = null;
+                    if (BrowserProfileTemplate.isEnabled()) {
+                        profileClone = BrowserProfileTemplate.createClone(chromeOptions, DriverManager::launchChrome);
+                        chromeOptions.addArguments("--user-data-dir=" + profileClone.toAbsolutePath());
+                    }
+                    try {
+                        webDriver = startWithService(ChromeDriverService.createDefaultService(),
+                                service -> new ChromeDriver(service, chromeOptions));
+                    } catch (IOException | RuntimeException e) {
+                        if (profileClone != null) {
+                            BrowserProfileTemplate.deleteClone(profileClone);
+                        }
+                        throw e;
+                    }
+                    if (profileClone != null) {
+                        BrowserProfileTemplate.register(webDriver, profileClone);
+                    }
                     break;
 
                 case "firefox":
-                    WebDriverManager.firefoxdriver().setup();
                     FirefoxOptions firefoxOptions = new FirefoxOptions();
+                    firefoxOptions.setPageLoadStrategy(AppReadiness.getPageLoadStrategy());
                     if (headless) {
                         firefoxOptions.addArguments("--headless");
                     }
-                    webDriver = new FirefoxDriver(firefoxOptions);
+                    if (isRemote()) {
+                        webDriver = startRemote(firefoxOptions);
+                        break;
+                    }
+                    DriverBinaryResolver.resolve("firefox");
+                    webDriver = startWithService(GeckoDriverService.createDefaultService(),
+                            service -> new FirefoxDriver(service, firefoxOptions));
                     break;
 
                 case "edge":
-                    WebDriverManager.edgedriver().setup();
                     EdgeOptions edgeOptions = new EdgeOptions();
+                    edgeOptions.setPageLoadStrategy(AppReadiness.getPageLoadStrategy());
                     if (headless) {
                         edgeOptions.addArguments("--headless");
                     }
-                    webDriver = new EdgeDriver(edgeOptions);
+                    if (isRemote()) {
+                        webDriver = startRemote(edgeOptions);
+                        break;
+                    }
+                    DriverBinaryResolver.resolve("edge");
+                    webDriver = startWithService(EdgeDriverService.createDefaultService(),
+                            service -> new EdgeDriver(service, edgeOptions));
                     break;
 
                 default:
                     logger.error("Invalid browser: {}. Defaulting to Chrome", browser);
-                    WebDriverManager.chromedriver().setup();
-                    webDriver = new ChromeDriver();
+                    if (isRemote()) {
+                        webDriver = startRemote(new ChromeOptions());
+                        break;
+                    }
+                    DriverBinaryResolver.resolve("chrome");
+                    webDriver = startWithService(ChromeDriverService.createDefaultService(),
+                            service -> new ChromeDriver(service, new ChromeOptions()));
             }
 
             // Set timeouts
@@ -87,8 +265,10 @@ public class DriverManager {
                 webDriver.manage().window().maximize();
             }
 
-            driver.set(webDriver);
+            AppReadiness.install(webDriver);
+
             logger.info("Driver initialized successfully");
+            return webDriver;
 
         } catch (Exception e) {
             logger.error("Failed to initialize driver: {}", e.getMessage());
@@ -96,6 +276,67 @@ public class DriverManager {
         }
     }
 
+    /**
+     * Check if sessions are opened on a remote Selenium Grid / node (remote.url)
+     * 
+     * @return boolean
+     */
+    public static boolean isRemote() {
+        String remoteUrl = configReader.getProperty("remote.url", "");
+        return !remoteUrl.isBlank();
+    }
+
+    /**
+     * Open a session on the remote Selenium endpoint; no local driver binary or process is involved
+     * 
+     * @param options Browser options
+     * @return WebDriver instance
+     */
+    private static WebDriver startRemote(Capabilities options) {
+        String remoteUrl = configReader.getProperty("remote.url");
+        try {
+            logger.info("Opening remote {} session on {}", options.getBrowserName(), remoteUrl);
+            return new RemoteWebDriver(new URL(remoteUrl), options);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid remote.url: " + remoteUrl, e);
+        }
+    }
+
+    /**
+     * Start a driver service, remember its process and open a session on it
+     * 
+     * @param service     Driver service
+     * @param constructor Creates the WebDriver on the running service
+     * @return WebDriver instance
+     * @throws IOException if the service fails to start
+     */
+    private static <S extends DriverService> WebDriver startWithService(S service, Function<S, WebDriver> constructor)
+            throws IOException {
+        ProcessHandle process = DriverProcessTracker.startService(service);
+        try {
+            WebDriver webDriver = constructor.apply(service);
+            DriverProcessTracker.register(webDriver, process);
+            return webDriver;
+        } catch (RuntimeException e) {
+            service.stop();
+            throw e;
+        }
+    }
+
+    /**
+     * Launch a Chrome session on its own driver service
+     * 
+     * @param options Chrome options
+     * @return WebDriver instance
+     */
+    private static WebDriver launchChrome(ChromeOptions options) {
+        try {
+            return startWithService(ChromeDriverService.createDefaultService(), service -> new ChromeDriver(service, options));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Get the current WebDriver instance
      * 
@@ -104,23 +345,158 @@ public class DriverManager {
     public static WebDriver getDriver() {
         if (driver.get() == null) {
             initializeDriver();
+        } else if (DriverSupervisor.isMarkedDead(driver.get())) {
+            replaceDriver();
+        }
+        return driver.get();
+    }
+
+    /**
+     * Probe the current session and replace it if the browser is gone
+     * 
+     * @return true if the session had to be replaced
+     */
+    public static boolean ensureLiveDriver() {
+        if (!DriverSupervisor.isEnabled() || driver.get() == null || DriverSupervisor.isAlive(driver.get())) {
+            return false;
+        }
+        replaceDriver();
+        return true;
+    }
+
+    /**
+     * Probe the current session and mark it dead if the browser is gone, without replacing it
+     * Used once a scenario has failed: its remaining steps are skipped, so a replacement would
+     * only be launched to be quit again; quitDriver discards the dead session without talking to it
+     * 
+     * @return true if the session was lost
+     */
+    public static boolean isDriverLost() {
+        WebDriver current = driver.get();
+        if (!DriverSupervisor.isEnabled() || current == null || DriverSupervisor.isAlive(current)) {
+            return false;
+        }
+        DriverSupervisor.markDead(current);
+        return true;
+    }
+
+    /**
+     * Throw away the current, dead session and put a fresh one on this thread
+     * 
+     * @return New WebDriver instance
+     */
+    public static WebDriver replaceDriver() {
+        WebDriver dead = driver.get();
+        driver.remove();
+        if (dead != null) {
+            DriverSupervisor.markDead(dead);
+            discardDeadDriver(dead);
+            logger.warn("Replacing dead browser session (replacement #{} this run)", DriverSupervisor.recordReplacement());
         }
+        initializeDriver();
         return driver.get();
     }
 
+    /**
+     * Get rid of a dead session without talking to it: its process tree is killed
+     * 
+     * @param webDriver Dead WebDriver instance
+     */
+    private static void discardDeadDriver(WebDriver webDriver) {
+        DriverPool driverPool = driverPools.get(getBrowser());
+        if (driverPool != null) {
+            driverPool.invalidate(webDriver);
+            return;
+        }
+        DriverProcessTracker.getProcess(webDriver).ifPresent(DriverProcessTracker::killTree);
+        SharedBrowserContexts.forgetContext(webDriver);
+        releaseResources(webDriver);
+    }
+
     /**
      * Quit the WebDriver and remove from ThreadLocal
+     * In pooled mode the driver is reset and returned to the pool instead
      */
     public static void quitDriver() {
-        if (driver.get() != null) {
-            try {
-                logger.info("Quitting driver");
-                driver.get().quit();
-                driver.remove();
-                logger.info("Driver quit successfully");
-            } catch (Exception e) {
-                logger.error("Error while quitting driver: {}", e.getMessage());
+        WebDriver current = driver.get();
+        if (current == null) {
+            return;
+        }
+        driver.remove();
+        if (DriverSupervisor.isMarkedDead(current)) {
+            discardDeadDriver(current);
+            return;
+        }
+        DriverPool driverPool = driverPools.get(getBrowser());
+        if (driverPool != null) {
+            driverPool.release(current);
+            return;
+        }
+        logger.info("Quitting driver");
+        destroyDriver(current);
+    }
+
+    /**
+     * Quit a browser for good, logging instead of throwing on failure
+     * With driver.reaper.enabled=true the quit runs on the background reaper
+     * 
+     * @param webDriver WebDriver instance
+     */
+    static void destroyDriver(WebDriver webDriver) {
+        // A shared-browser context has to be disposed while its session is still attached
+        SharedBrowserContexts.closeContext(webDriver);
+        if (configReader.getBooleanProperty("driver.reaper.enabled", false)) {
+            getReaper().reap(webDriver);
+            return;
+        }
+        try {
+            webDriver.quit();
+            logger.info("Driver quit successfully");
+        } catch (Exception e) {
+            logger.error("Error while quitting driver: {}", e.getMessage());
+        } finally {
+            releaseResources(webDriver);
+        }
+    }
+
+    /**
+     * Release everything tied to a browser that has quit or been killed
+     * 
+     * @param webDriver WebDriver instance
+     */
+    static void releaseResources(WebDriver webDriver) {
+        DriverProcessTracker.unregister(webDriver);
+        BrowserProfileTemplate.deleteClone(webDriver);
+    }
+
+    /**
+     * Log driver reaper metrics, if the reaper was used in this JVM
+     */
+    public static void logReaperMetrics() {
+        DriverReaper current = reaper;
+        if (current != null) {
+            current.logMetrics();
+        }
+    }
+
+    /**
+     * Get the shared driver reaper, creating it on first use
+     * 
+     * @return DriverReaper instance
+     */
+    private static DriverReaper getReaper() {
+        if (reaper == null) {
+            synchronized (DriverManager.class) {
+                if (reaper == null) {
+                    reaper = new DriverReaper(
+                            configReader.getIntProperty("driver.reaper.threads", 2),
+                            configReader.getIntProperty("driver.reaper.queue.size", 8),
+                            configReader.getLongProperty("driver.reaper.kill.deadline.seconds", 15) * 1000,
+                            DriverManager::releaseResources);
+                    Runtime.getRuntime().addShutdownHook(new Thread(reaper::shutdown, "driver-reaper-shutdown"));
+                }
             }
         }
+        return reaper;
     }
 }
@@ -0,0 +1,347 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * DriverPool class keeps a bounded set of warm browsers that are handed out
+ * per scenario and reset when returned, instead of launching a new browser
+ * for every scenario. Browsers are recycled between scenarios once they have
+ * run too many scenarios or their process tree uses too much memory
+ */
+public class DriverPool {
+
+    private static final Logger logger = LogManager.getLogger(DriverPool.class);
+    private static final long WAIT_SLICE_MILLIS = 500;
+
+    /**
+     * How much browser state is wiped when a driver is returned to the pool
+     */
+    public enum ResetPolicy {
+        /** Clear cookies, local/session storage, close extra windows, load about:blank */
+        FULL,
+        /** Clear cookies and load about:blank */
+        COOKIES,
+        /** Return the browser as-is */
+        NONE;
+
+        /**
+         * Parse policy from configuration value
+         *
+         * @param value Configuration value
+         * @return ResetPolicy, FULL when the value is unknown
+         */
+        public static ResetPolicy fromConfig(String value) {
+            if (value == null || value.isBlank()) {
+                return FULL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unknown driver pool reset policy '{}'. Using FULL", value);
+                return FULL;
+            }
+        }
+    }
+
+    /**
+     * Pooled browser with its bookkeeping
+     */
+    static class PooledDriver {
+        final WebDriver driver;
+        // The window reset keeps; recorded at launch since handle order is not defined
+        final String homeHandle;
+        final long createdAt;
+        long lastReturnedAt;
+        int scenarioCount;
+
+        PooledDriver(WebDriver driver) {
+            this.driver = driver;
+            this.homeHandle = SharedBrowserContexts.getHomeHandle(driver);
+            this.createdAt = System.currentTimeMillis();
+            this.lastReturnedAt = createdAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long maxIdleMillis;
+    private final long acquireTimeoutMillis;
+    private final ResetPolicy resetPolicy;
+    private final int maxScenariosPerBrowser;
+    private final long maxRssBytes;
+    private final String baseUrl;
+    private final Supplier<WebDriver> factory;
+    private final Consumer<WebDriver> destroyer;
+    private final Semaphore capacity;
+    private final LinkedBlockingDeque<PooledDriver> idle = new LinkedBlockingDeque<>();
+    private final Map<WebDriver, PooledDriver> leased = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize              Maximum number of live browsers
+     * @param maxIdleMillis        Idle time after which a warm browser is closed
+     * @param acquireTimeoutMillis Maximum time to wait for a free browser
+     * @param resetPolicy          Reset applied when a browser is returned
+     * @param maxScenariosPerBrowser Scenarios after which a browser is recycled, 0 for no limit
+     * @param maxRssBytes          Process tree memory above which a browser is recycled, 0 for no limit
+     * @param baseUrl              Application URL whose storage is cleared on reset
+     * @param factory              Creates a new browser
+     * @param destroyer            Quits a browser for good
+     */
+    public DriverPool(int maxSize, long maxIdleMillis, long acquireTimeoutMillis, ResetPolicy resetPolicy,
+            int maxScenariosPerBrowser, long maxRssBytes, String baseUrl,
+            Supplier<WebDriver> factory, Consumer<WebDriver> destroyer) {
+        this.maxSize = Math.max(1, maxSize);
+        this.maxIdleMillis = maxIdleMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.resetPolicy = resetPolicy;
+        this.maxScenariosPerBrowser = maxScenariosPerBrowser;
+        this.maxRssBytes = maxRssBytes;
+        this.baseUrl = baseUrl;
+        this.factory = factory;
+        this.destroyer = destroyer;
+        this.capacity = new Semaphore(this.maxSize);
+        logger.info("Driver pool created: size={}, maxIdle={}ms, reset={}, maxScenarios={}, maxRss={}MB",
+                this.maxSize, maxIdleMillis, resetPolicy, maxScenariosPerBrowser, maxRssBytes / (1024 * 1024));
+    }
+
+    /**
+     * Hand out a warm browser, launching a new one while the pool is below its size
+     *
+     * @return WebDriver instance
+     */
+    public WebDriver acquire() {
+        if (shutdown) {
+            throw new IllegalStateException("Driver pool is shut down");
+        }
+        long deadline = System.currentTimeMillis() + acquireTimeoutMillis;
+        while (true) {
+            evictIdle();
+            PooledDriver pooled = idle.pollFirst();
+            if (pooled != null) {
+                return lease(pooled, "warm");
+            }
+            if (capacity.tryAcquire()) {
+                try {
+                    WebDriver created = factory.get();
+                    try {
+                        return lease(new PooledDriver(created), "new");
+                    } catch (RuntimeException e) {
+                        destroyer.accept(created);
+                        throw e;
+                    }
+                } catch (RuntimeException e) {
+                    capacity.release();
+                    throw e;
+                }
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IllegalStateException("Timed out after " + acquireTimeoutMillis
+                        + "ms waiting for a browser from the driver pool");
+            }
+            try {
+                pooled = idle.pollFirst(Math.min(remaining, WAIT_SLICE_MILLIS), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a pooled browser", e);
+            }
+            if (pooled != null) {
+                return lease(pooled, "warm");
+            }
+        }
+    }
+
+    /**
+     * Return a browser to the pool, resetting it according to the reset policy
+     *
+     * @param driver WebDriver previously handed out by {@link #acquire()}
+     */
+    public void release(WebDriver driver) {
+        PooledDriver pooled = leased.remove(driver);
+        if (pooled == null) {
+            logger.warn("Driver was not leased from the pool, quitting it");
+            destroyer.accept(driver);
+            return;
+        }
+        if (shutdown) {
+            discard(pooled);
+            return;
+        }
+        // Release happens between scenarios, so recycling never interrupts a running scenario
+        String recycleReason = recycleReason(pooled);
+        if (recycleReason != null) {
+            logger.info("Recycling pooled driver after {} scenario(s): {}", pooled.scenarioCount, recycleReason);
+            discard(pooled);
+            return;
+        }
+        if (!reset(pooled)) {
+            discard(pooled);
+            return;
+        }
+        pooled.lastReturnedAt = System.currentTimeMillis();
+        // LIFO keeps the most recently used browsers hot and lets the rest age out
+        idle.offerFirst(pooled);
+        logger.debug("Driver returned to pool after {} scenario(s)", pooled.scenarioCount);
+    }
+
+    /**
+     * Drop a leased browser that is known to be dead, killing its process tree
+     * instead of resetting it
+     *
+     * @param driver WebDriver previously handed out by {@link #acquire()}
+     */
+    public void invalidate(WebDriver driver) {
+        PooledDriver pooled = leased.remove(driver);
+        DriverProcessTracker.getProcess(driver).ifPresent(DriverProcessTracker::killTree);
+        try {
+            destroyer.accept(driver);
+        } finally {
+            if (pooled != null) {
+                capacity.release();
+            }
+        }
+        logger.warn("Dead driver removed from pool");
+    }
+
+    /**
+     * Quit every browser owned by the pool
+     */
+    public void shutdown() {
+        shutdown = true;
+        List<PooledDriver> all = new ArrayList<>();
+        idle.drainTo(all);
+        all.addAll(leased.values());
+        leased.clear();
+        logger.info("Shutting down driver pool, closing {} browser(s)", all.size());
+        all.forEach(this::discard);
+    }
+
+    private WebDriver lease(PooledDriver pooled, String origin) {
+        pooled.scenarioCount++;
+        leased.put(pooled.driver, pooled);
+        logger.info("Leased {} driver from pool (scenario #{} on this browser, {} idle)",
+                origin, pooled.scenarioCount, idle.size());
+        return pooled.driver;
+    }
+
+    private void discard(PooledDriver pooled) {
+        try {
+            destroyer.accept(pooled.driver);
+        } finally {
+            capacity.release();
+        }
+    }
+
+    /**
+     * Decide whether a returned browser has reached its recycling limits
+     *
+     * @param pooled Returned browser
+     * @return Reason for recycling, or null to keep the browser
+     */
+    private String recycleReason(PooledDriver pooled) {
+        if (maxScenariosPerBrowser > 0 && pooled.scenarioCount >= maxScenariosPerBrowser) {
+            return "scenario count " + pooled.scenarioCount + " reached limit " + maxScenariosPerBrowser;
+        }
+        if (maxRssBytes > 0) {
+            long rss = DriverProcessTracker.residentSetBytes(pooled.driver);
+            if (rss >= maxRssBytes) {
+                return "process tree RSS " + rss / (1024 * 1024) + "MB exceeds limit " + maxRssBytes / (1024 * 1024) + "MB";
+            }
+        }
+        return null;
+    }
+
+    private void evictIdle() {
+        if (maxIdleMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<PooledDriver> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            PooledDriver pooled = iterator.next();
+            if (now - pooled.lastReturnedAt > maxIdleMillis && idle.removeFirstOccurrence(pooled)) {
+                logger.info("Closing driver idle for {}ms", now - pooled.lastReturnedAt);
+                discard(pooled);
+            }
+        }
+    }
+
+    /**
+     * Reset browser state between scenarios
+     *
+     * @param pooled Returned browser
+     * @return true if the browser is clean and can be reused
+     */
+    private boolean reset(PooledDriver pooled) {
+        if (resetPolicy == ResetPolicy.NONE) {
+            return true;
+        }
+        WebDriver driver = pooled.driver;
+        try {
+            if (resetPolicy == ResetPolicy.FULL) {
+                closeExtraWindows(pooled);
+                clearWebStorage(driver);
+            }
+            driver.manage().deleteAllCookies();
+            if (driver instanceof HasCdp) {
+                // deleteAllCookies only covers the current document's domain
+                ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to reset pooled driver, discarding it: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void closeExtraWindows(PooledDriver pooled) {
+        WebDriver driver = pooled.driver;
+        // In shared-browser mode only this session's context: other tabs belong to running scenarios
+        Set<String> handles = SharedBrowserContexts.getWindowHandles(driver);
+        if (!handles.contains(pooled.homeHandle)) {
+            throw new IllegalStateException("Original window of the pooled browser was closed");
+        }
+        for (String handle : handles) {
+            if (!handle.equals(pooled.homeHandle)) {
+                driver.switchTo().window(handle);
+                driver.close();
+            }
+        }
+        driver.switchTo().window(pooled.homeHandle);
+    }
+
+    private void clearWebStorage(WebDriver driver) {
+        String url = driver.getCurrentUrl();
+        if (url != null && url.startsWith("http")) {
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        }
+        if (driver instanceof HasCdp && baseUrl != null) {
+            // Covers the application origin even when the scenario ended on another page
+            URI uri = URI.create(baseUrl);
+            String origin = uri.getScheme() + "://" + uri.getAuthority();
+            ((HasCdp) driver).executeCdpCommand("Storage.clearDataForOrigin",
+                    Map.of("origin", origin, "storageTypes", "local_storage,session_storage"));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * DriverPrelauncher class launches the next scenarios' browsers in the
+ * background while the current scenario is still running, so scenario
+ * setup gets a ready session instead of waiting for a browser launch
+ */
+public class DriverPrelauncher {
+
+    private static final Logger logger = LogManager.getLogger(DriverPrelauncher.class);
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final int depth;
+    private final Supplier<WebDriver> factory;
+    private final Consumer<WebDriver> destroyer;
+    private final ExecutorService launcher;
+    private final BlockingQueue<Future<WebDriver>> pending = new LinkedBlockingQueue<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Constructor
+     *
+     * @param depth     Number of browsers launched ahead of demand
+     * @param factory   Creates a new browser
+     * @param destroyer Quits a browser for good
+     */
+    public DriverPrelauncher(int depth, Supplier<WebDriver> factory, Consumer<WebDriver> destroyer) {
+        this.depth = Math.max(1, depth);
+        this.factory = factory;
+        this.destroyer = destroyer;
+        AtomicInteger counter = new AtomicInteger();
+        this.launcher = Executors.newFixedThreadPool(this.depth, runnable -> {
+            Thread thread = new Thread(runnable, "driver-prelaunch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Driver pre-launcher created with look-ahead depth {}", this.depth);
+    }
+
+    /**
+     * Take a pre-launched browser, launching one synchronously if none is queued,
+     * and start launching the next one in the background
+     *
+     * @return WebDriver instance
+     */
+    public WebDriver take() {
+        if (shutdown) {
+            throw new IllegalStateException("Driver pre-launcher is shut down");
+        }
+        Future<WebDriver> next = pending.poll();
+        topUp();
+        if (next != null) {
+            try {
+                WebDriver webDriver = next.get();
+                logger.info("Using pre-launched driver");
+                return webDriver;
+            } catch (ExecutionException | CancellationException e) {
+                logger.warn("Pre-launched driver failed to start, launching synchronously: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for pre-launched driver", e);
+            }
+        }
+        return factory.get();
+    }
+
+    /**
+     * Queue background launches until the look-ahead depth is reached
+     */
+    public synchronized void topUp() {
+        while (!shutdown && pending.size() < depth) {
+            pending.add(launcher.submit(this::launch));
+        }
+    }
+
+    /**
+     * Stop launching and quit every browser that was launched but never handed out
+     */
+    public synchronized void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        List<Future<WebDriver>> leftovers = new ArrayList<>();
+        pending.drainTo(leftovers);
+        // Launches already in flight quit their own browser once they see the shutdown flag
+        launcher.shutdown();
+        for (Future<WebDriver> future : leftovers) {
+            if (future.cancel(false)) {
+                continue;
+            }
+            try {
+                destroyer.accept(future.get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                logger.debug("Pre-launched driver not available at shutdown: {}", e.getMessage());
+            }
+        }
+        logger.info("Driver pre-launcher shut down, {} queued launch(es) cleaned up", leftovers.size());
+    }
+
+    private WebDriver launch() {
+        WebDriver webDriver = factory.get();
+        if (shutdown) {
+            destroyer.accept(webDriver);
+            throw new CancellationException("Driver pre-launcher shut down during launch");
+        }
+        return webDriver;
+    }
+}
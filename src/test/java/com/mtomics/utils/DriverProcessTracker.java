@@ -0,0 +1,156 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * DriverProcessTracker class maps each WebDriver to the operating system
+ * process of its driver service (chromedriver, geckodriver, msedgedriver),
+ * so the browser process tree can be inspected or killed when quit() hangs
+ */
+public class DriverProcessTracker {
+
+    private static final Logger logger = LogManager.getLogger(DriverProcessTracker.class);
+    private static final Map<WebDriver, ProcessHandle> processes = new ConcurrentHashMap<>();
+    private static final ReentrantLock LAUNCH_LOCK = new ReentrantLock();
+    // Executable names of the driver services this framework starts
+    private static final List<String> DRIVER_EXECUTABLES = List.of("chromedriver", "geckodriver", "msedgedriver");
+
+    /**
+     * Start a driver service and detect the process it spawned
+     * Service start-up is serialized so concurrent launches cannot mix up processes
+     * (a ReentrantLock, so waiting virtual threads do not pin their carrier), and only a
+     * new child running a driver executable is taken: other threads may spawn unrelated
+     * children (worker JVMs, ps, stub servers) at the same time
+     *
+     * @param service Driver service that is not yet running
+     * @return Driver service process, or null if it could not be detected
+     * @throws IOException if the service fails to start
+     */
+    public static ProcessHandle startService(DriverService service) throws IOException {
+        LAUNCH_LOCK.lock();
+        try {
+            Set<Long> before = childPids();
+            service.start();
+            ProcessHandle process = ProcessHandle.current().children()
+                    .filter(child -> !before.contains(child.pid()))
+                    .filter(DriverProcessTracker::isDriverProcess)
+                    .findFirst()
+                    .orElse(null);
+            if (process == null) {
+                logger.warn("Could not detect driver service process for {}", service.getUrl());
+            } else {
+                logger.debug("Driver service started with PID {}", process.pid());
+                OrphanProcessReaper.record(process);
+            }
+            return process;
+        } finally {
+            LAUNCH_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Register the driver service process of a WebDriver
+     *
+     * @param driver  WebDriver instance
+     * @param process Driver service process, ignored when null
+     */
+    public static void register(WebDriver driver, ProcessHandle process) {
+        if (process != null) {
+            processes.put(driver, process);
+            // The browser is spawned during session creation: record it while its parent is known
+            OrphanProcessReaper.record(process);
+        }
+    }
+
+    /**
+     * Get the driver service process of a WebDriver
+     *
+     * @param driver WebDriver instance
+     * @return Driver service process if known
+     */
+    public static Optional<ProcessHandle> getProcess(WebDriver driver) {
+        return Optional.ofNullable(processes.get(driver));
+    }
+
+    /**
+     * Forget the driver service process of a WebDriver
+     *
+     * @param driver WebDriver instance
+     * @return Driver service process if it was known
+     */
+    public static Optional<ProcessHandle> unregister(WebDriver driver) {
+        return Optional.ofNullable(processes.remove(driver));
+    }
+
+    /**
+     * Forcibly kill a driver service process and every browser process below it
+     *
+     * @param process Driver service process
+     */
+    public static void killTree(ProcessHandle process) {
+        // Browsers first: once the driver dies they are re-parented and harder to find
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        logger.warn("Force killed driver process tree rooted at PID {}", process.pid());
+    }
+
+    /**
+     * Get resident memory of a browser's whole process tree (driver service, browser,
+     * renderers), read from /proc on Linux
+     *
+     * @param driver WebDriver instance
+     * @return Resident set size in bytes, or -1 when it cannot be measured
+     */
+    public static long residentSetBytes(WebDriver driver) {
+        ProcessHandle process = processes.get(driver);
+        if (process == null || !Files.isDirectory(Paths.get("/proc/self"))) {
+            return -1;
+        }
+        return Stream.concat(Stream.of(process), process.descendants())
+                .mapToLong(DriverProcessTracker::processResidentSetBytes)
+                .sum();
+    }
+
+    private static long processResidentSetBytes(ProcessHandle process) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(process.pid()), "status"))) {
+                // Format: "VmRSS:     123456 kB"
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Process exited while the tree was being walked
+        }
+        return 0;
+    }
+
+    private static boolean isDriverProcess(ProcessHandle process) {
+        Optional<String> command = process.info().command();
+        if (command.isEmpty()) {
+            return false;
+        }
+        String executable = Paths.get(command.get()).getFileName().toString().toLowerCase(Locale.ROOT);
+        return DRIVER_EXECUTABLES.stream().anyMatch(executable::startsWith);
+    }
+
+    private static Set<Long> childPids() {
+        return ProcessHandle.current().children().map(ProcessHandle::pid).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,204 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * DriverReaper class quits browsers on a bounded background executor so the
+ * scenario thread can move on immediately. A browser that has not quit within
+ * the kill deadline has its process tree forcibly killed. When the queue is
+ * full the caller waits for the quit itself, but never past the kill deadline
+ */
+public class DriverReaper {
+
+    private static final Logger logger = LogManager.getLogger(DriverReaper.class);
+
+    private final long killDeadlineMillis;
+    private final Consumer<WebDriver> afterQuit;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService watchdog;
+    private final AtomicInteger reaped = new AtomicInteger();
+    private final AtomicInteger forcedKills = new AtomicInteger();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param threads            Number of reaper threads
+     * @param queueCapacity      Maximum number of browsers waiting to be quit; when full the caller waits for the quit
+     * @param killDeadlineMillis Time allowed for quit() before the process tree is killed
+     * @param afterQuit          Releases resources tied to a browser once it is gone
+     */
+    public DriverReaper(int threads, int queueCapacity, long killDeadlineMillis, Consumer<WebDriver> afterQuit) {
+        this.killDeadlineMillis = killDeadlineMillis;
+        this.afterQuit = afterQuit;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> daemon(runnable, "driver-reaper-" + counter.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "driver-reaper-watchdog"));
+        logger.info("Driver reaper created: threads={}, queue={}, killDeadline={}ms", threads, queueCapacity, killDeadlineMillis);
+    }
+
+    /**
+     * Hand a browser over for shutdown without blocking the caller
+     *
+     * @param driver WebDriver instance
+     */
+    public void reap(WebDriver driver) {
+        long submittedAt = System.currentTimeMillis();
+        AtomicBoolean finished = new AtomicBoolean();
+        Optional<ProcessHandle> process = DriverProcessTracker.getProcess(driver);
+        Future<?> quit;
+        try {
+            quit = executor.submit(() -> quit(driver, submittedAt, finished));
+        } catch (RejectedExecutionException e) {
+            // Queue full or reaper shut down
+            quitWithinDeadline(driver, process, submittedAt, finished);
+            return;
+        }
+        watchdog.schedule(() -> {
+            if (finished.compareAndSet(false, true)) {
+                quit.cancel(true);
+                forceKill(driver, process, submittedAt);
+            }
+        }, killDeadlineMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Quit a browser on behalf of the caller, which waits at most the kill deadline
+     * A hanging quit() runs on its own thread so the caller is not stuck with it
+     *
+     * @param driver      WebDriver instance
+     * @param process     Driver service process, if known
+     * @param submittedAt Hand-over time
+     * @param finished    Set once the browser has been dealt with
+     */
+    private void quitWithinDeadline(WebDriver driver, Optional<ProcessHandle> process, long submittedAt,
+                                    AtomicBoolean finished) {
+        Thread quit = daemon(() -> quit(driver, submittedAt, finished), "driver-reaper-inline");
+        quit.start();
+        try {
+            quit.join(killDeadlineMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (finished.compareAndSet(false, true)) {
+            quit.interrupt();
+            forceKill(driver, process, submittedAt);
+        }
+    }
+
+    private void forceKill(WebDriver driver, Optional<ProcessHandle> process, long submittedAt) {
+        process.ifPresent(DriverProcessTracker::killTree);
+        afterQuit.accept(driver);
+        forcedKills.incrementAndGet();
+        record(submittedAt);
+        logger.warn("Driver did not quit within {}ms and was force killed", killDeadlineMillis);
+    }
+
+    /**
+     * Wait for pending quits to finish, killing whatever is still alive after the deadline
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(killDeadlineMillis + 1000, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Get number of browsers quit by the reaper
+     *
+     * @return Reaped count
+     */
+    public int getReapedCount() {
+        return reaped.get();
+    }
+
+    /**
+     * Get number of browsers that had to be force killed
+     *
+     * @return Forced kill count
+     */
+    public int getForcedKillCount() {
+        return forcedKills.get();
+    }
+
+    /**
+     * Get average time from hand-over to browser shutdown
+     *
+     * @return Average latency in milliseconds
+     */
+    public long getAverageLatencyMillis() {
+        int count = reaped.get();
+        return count == 0 ? 0 : totalLatencyMillis.get() / count;
+    }
+
+    /**
+     * Get the slowest hand-over to browser shutdown
+     *
+     * @return Maximum latency in milliseconds
+     */
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    /**
+     * Log reaper metrics
+     */
+    public void logMetrics() {
+        logger.info("Driver reaper metrics: reaped={}, forcedKills={}, avgLatency={}ms, maxLatency={}ms",
+                getReapedCount(), getForcedKillCount(), getAverageLatencyMillis(), getMaxLatencyMillis());
+    }
+
+    private void quit(WebDriver driver, long submittedAt, AtomicBoolean finished) {
+        try {
+            driver.quit();
+            logger.debug("Driver quit by reaper");
+        } catch (Exception e) {
+            logger.error("Error while quitting driver: {}", e.getMessage());
+        } finally {
+            // The watchdog may already have killed and counted this browser
+            if (finished.compareAndSet(false, true)) {
+                afterQuit.accept(driver);
+                record(submittedAt);
+            }
+        }
+    }
+
+    private void record(long submittedAt) {
+        long latency = System.currentTimeMillis() - submittedAt;
+        reaped.incrementAndGet();
+        totalLatencyMillis.addAndGet(latency);
+        maxLatencyMillis.accumulateAndGet(latency, Math::max);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
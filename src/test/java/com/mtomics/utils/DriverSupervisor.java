@@ -0,0 +1,133 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.net.ConnectException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DriverSupervisor class detects dead browser sessions (crashed chromedriver
+ * or renderer, hung browser) with a cheap, time-boxed liveness probe so they
+ * can be replaced instead of failing every later step with slow timeouts
+ */
+public class DriverSupervisor {
+
+    /**
+     * Prefix of the scenario log line that marks a failure as caused by a lost browser
+     * Failure history ignores scenarios carrying it
+     */
+    public static final String INFRASTRUCTURE_FAILURE_MARKER = "INFRASTRUCTURE FAILURE";
+    private static final Logger logger = LogManager.getLogger(DriverSupervisor.class);
+    private static final Set<WebDriver> deadDrivers = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final AtomicInteger replacements = new AtomicInteger();
+    private static final ConfigReader configReader = new ConfigReader();
+    // One virtual thread per probe: hundreds of remote sessions must not need as many platform threads
+    private static final ExecutorService probes = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("driver-liveness-probe-", 0).factory());
+
+    /**
+     * Check if supervision is enabled
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return configReader.getBooleanProperty("driver.supervisor.enabled", false);
+    }
+
+    /**
+     * Probe a session with a cheap command, giving up after the liveness timeout
+     *
+     * @param driver WebDriver instance
+     * @return true if the session answered in time
+     */
+    public static boolean isAlive(WebDriver driver) {
+        if (driver == null || isMarkedDead(driver)) {
+            return false;
+        }
+        long timeout = configReader.getLongProperty("driver.liveness.timeout.ms", 5000);
+        Future<String> probe = probes.submit(driver::getWindowHandle);
+        try {
+            probe.get(timeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            probe.cancel(true);
+            logger.error("Browser session did not answer liveness probe within {}ms", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (Exception e) {
+            if (!isSessionLoss(e)) {
+                // The session answered, just not with a window (e.g. the window was closed)
+                return true;
+            }
+            logger.error("Browser session is gone: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+        markDead(driver);
+        return false;
+    }
+
+    /**
+     * Check if an error means the browser session itself is lost
+     *
+     * @param error Error raised by a WebDriver call
+     * @return boolean
+     */
+    public static boolean isSessionLoss(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NoSuchSessionException
+                    || cause instanceof SessionNotCreatedException
+                    || cause instanceof UnreachableBrowserException
+                    || cause instanceof ConnectException) {
+                return true;
+            }
+            String message = cause.getMessage();
+            if (message != null && (message.contains("chrome not reachable")
+                    || message.contains("disconnected: not connected to DevTools"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remember that a session is dead so it is never reused or reset
+     *
+     * @param driver WebDriver instance
+     */
+    public static void markDead(WebDriver driver) {
+        deadDrivers.add(driver);
+    }
+
+    /**
+     * Check if a session has been found dead
+     *
+     * @param driver WebDriver instance
+     * @return boolean
+     */
+    public static boolean isMarkedDead(WebDriver driver) {
+        return deadDrivers.contains(driver);
+    }
+
+    /**
+     * Count a dead session being replaced
+     *
+     * @return Number of replacements so far in this run
+     */
+    static int recordReplacement() {
+        return replacements.incrementAndGet();
+    }
+}
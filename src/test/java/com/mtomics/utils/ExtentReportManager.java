@@ -9,21 +9,34 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * ExtentReportManager class manages ExtentReports generation
+ * Report-level operations hold a ReentrantLock rather than a monitor, so virtual
+ * threads waiting on a flush do not pin their carrier; the current test is kept per thread
  */
 public class ExtentReportManager {
 
     private static final Logger logger = LogManager.getLogger(ExtentReportManager.class);
-    private static ExtentReports extentReports;
+    private static volatile ExtentReports extentReports;
     private static ThreadLocal<ExtentTest> extentTest = new ThreadLocal<>();
     private static ConfigReader configReader = new ConfigReader();
+    private static final ReentrantLock REPORT_LOCK = new ReentrantLock();
 
     /**
      * Initialize ExtentReports
      */
     public static void initializeReport() {
+        REPORT_LOCK.lock();
+        try {
+            initializeReportLocked();
+        } finally {
+            REPORT_LOCK.unlock();
+        }
+    }
+
+    private static void initializeReportLocked() {
         if (extentReports == null) {
             try {
                 logger.info("Initializing ExtentReports");
@@ -78,9 +91,14 @@ public class ExtentReportManager {
      */
     public static ExtentTest createTest(String testName) {
         logger.info("Creating test in report: {}", testName);
-        ExtentTest test = extentReports.createTest(testName);
-        extentTest.set(test);
-        return test;
+        REPORT_LOCK.lock();
+        try {
+            ExtentTest test = extentReports.createTest(testName);
+            extentTest.set(test);
+            return test;
+        } finally {
+            REPORT_LOCK.unlock();
+        }
     }
 
     /**
@@ -92,9 +110,14 @@ public class ExtentReportManager {
      */
     public static ExtentTest createTest(String testName, String description) {
         logger.info("Creating test in report: {} - {}", testName, description);
-        ExtentTest test = extentReports.createTest(testName, description);
-        extentTest.set(test);
-        return test;
+        REPORT_LOCK.lock();
+        try {
+            ExtentTest test = extentReports.createTest(testName, description);
+            extentTest.set(test);
+            return test;
+        } finally {
+            REPORT_LOCK.unlock();
+        }
     }
 
     /**
@@ -231,9 +254,14 @@ public class ExtentReportManager {
      * Flush the report (write to file)
      */
     public static void flushReport() {
-        if (extentReports != null) {
-            logger.info("Flushing ExtentReports");
-            extentReports.flush();
+        REPORT_LOCK.lock();
+        try {
+            if (extentReports != null) {
+                logger.info("Flushing ExtentReports");
+                extentReports.flush();
+            }
+        } finally {
+            REPORT_LOCK.unlock();
         }
     }
 
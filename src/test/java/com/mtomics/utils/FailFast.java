@@ -0,0 +1,60 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FailFast class stops a run that is clearly broken: once failfast.max.failures
+ * scenarios have failed in this JVM, every scenario that has not started yet is
+ * skipped. 0 (the default) runs everything
+ */
+public class FailFast {
+
+    private static final Logger logger = LogManager.getLogger(FailFast.class);
+    private static final AtomicInteger failures = new AtomicInteger();
+    private static final AtomicInteger skipped = new AtomicInteger();
+    private static final ConfigReader configReader = new ConfigReader();
+
+    /**
+     * Get the failure threshold
+     *
+     * @return Failures after which the rest of the run is skipped, 0 for no limit
+     */
+    public static int getMaxFailures() {
+        return configReader.getIntProperty("failfast.max.failures", 0);
+    }
+
+    /**
+     * Count a failed scenario
+     *
+     * @param scenarioName Name of the failed scenario
+     */
+    public static void recordFailure(String scenarioName) {
+        int count = failures.incrementAndGet();
+        int max = getMaxFailures();
+        if (max > 0 && count == max) {
+            logger.error("FAIL-FAST: {} scenario(s) failed (last: '{}'), skipping the rest of the run", count, scenarioName);
+        }
+    }
+
+    /**
+     * Check if the threshold has been reached
+     *
+     * @return boolean
+     */
+    public static boolean isTripped() {
+        int max = getMaxFailures();
+        return max > 0 && failures.get() >= max;
+    }
+
+    /**
+     * Count a scenario skipped because of fail-fast
+     *
+     * @return Number of scenarios skipped so far
+     */
+    public static int recordSkip() {
+        return skipped.incrementAndGet();
+    }
+}
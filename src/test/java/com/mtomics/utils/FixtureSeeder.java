@@ -0,0 +1,543 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * FixtureSeeder class creates scenario preconditions (clients, event types,
+ * schedules, appointments) through the backend API instead of the UI.
+ * A feature declares them in fixtures/&lt;feature path&gt;.json:
+ * <pre>
+ * { "role": "provider",
+ *   "fixtures": [
+ *     { "type": "event-type", "name": "Follow-up", "scope": "feature", "durationMinutes": 30 },
+ *     { "type": "client", "name": "John Doe", "email": "john.doe+{{unique}}@mailinator.com" },
+ *     { "type": "appointment", "name": "John Doe 10:00 AM", "scenarios": ["Cancel appointment"],
+ *       "client": "{{client:John Doe}}", "eventType": "{{event-type:Follow-up}}", "time": "10:00 AM" } ] }
+ * </pre>
+ * Every fixture is POSTed to fixtures.api.path.&lt;type&gt; as the leased account of the
+ * spec's role. Fixtures are created in parallel; {{type:name}} references wait for
+ * and resolve to the referenced fixture's id. "scenario" scoped fixtures (the default)
+ * are created for every scenario they apply to and deleted after it, so no scenario
+ * sees another one's changes. "feature" scoped ones are created once per feature and
+ * account and shared, which only suits fixtures no scenario modifies
+ */
+public class FixtureSeeder {
+
+    private static final Logger logger = LogManager.getLogger(FixtureSeeder.class);
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final Json JSON = new Json();
+    private static final Pattern REFERENCE = Pattern.compile("\\{\\{([\\w-]+):([^}]+)}}");
+    private static final String UNIQUE = "{{unique}}";
+    private static final String FEATURE_SCOPE = "feature";
+    private static final String SCENARIO_SCOPE = "scenario";
+    // Spec attributes that are not sent to the API
+    private static final Set<String> META_FIELDS = Set.of("type", "scope", "scenarios");
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Map<URI, Optional<Spec>> specs = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<Map<String, Object>>> featureFixtures = new ConcurrentHashMap<>();
+    // Delete URL of every feature scoped fixture, with the account that owns it
+    private static final Map<String, AccountPool.Account> featureCreated = new ConcurrentHashMap<>();
+    private static final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Fixture declarations of one feature
+     */
+    private static class Spec {
+        private final String role;
+        private final Map<String, Map<String, Object>> definitions;
+
+        Spec(String role, Map<String, Map<String, Object>> definitions) {
+            this.role = role;
+            this.definitions = definitions;
+        }
+    }
+
+    /**
+     * Fixtures of one scenario, created or being created
+     * Not thread-safe; used from the scenario's own thread
+     */
+    public static class Fixtures {
+        private final URI feature;
+        private final AccountPool.Account owner;
+        private final Map<String, Map<String, Object>> definitions;
+        private final Map<String, CompletableFuture<Map<String, Object>>> started = new LinkedHashMap<>();
+        private final Map<String, CompletableFuture<Map<String, Object>>> scenarioScoped = new LinkedHashMap<>();
+
+        Fixtures(URI feature, AccountPool.Account owner, Map<String, Map<String, Object>> definitions) {
+            this.feature = feature;
+            this.owner = owner;
+            this.definitions = definitions;
+        }
+
+        /**
+         * Get a fixture, creating it now if the spec did not already
+         * A fixture missing from the spec is created with just its name, scoped to the scenario
+         *
+         * @param type Fixture type, e.g. client
+         * @param name Fixture name
+         * @return Fixture as returned by the API, including its id
+         * @throws IllegalStateException if it cannot be created in time
+         */
+        public Map<String, Object> get(String type, String name) {
+            String key = key(type, name);
+            return await(key, start(key, new HashSet<>()));
+        }
+
+        /**
+         * Get every fixture of a type created for this scenario
+         *
+         * @param type Fixture type
+         * @return Fixtures in spec order
+         */
+        public List<Map<String, Object>> getAll(String type) {
+            List<Map<String, Object>> fixtures = new ArrayList<>();
+            started.forEach((key, future) -> {
+                if (key.startsWith(type + ":")) {
+                    fixtures.add(await(key, future));
+                }
+            });
+            return fixtures;
+        }
+
+        /**
+         * Check if a fixture was created (or is being created) before the scenario's steps ran
+         *
+         * @param type Fixture type
+         * @param name Fixture name
+         * @return boolean
+         */
+        public boolean isStarted(String type, String name) {
+            return started.containsKey(key(type, name));
+        }
+
+        /**
+         * Wait until every fixture started so far exists
+         *
+         * @throws IllegalStateException if one of them cannot be created in time
+         */
+        public void awaitAll() {
+            started.forEach(this::await);
+        }
+
+        /**
+         * Delete the fixtures scoped to this scenario, in parallel
+         * A scenario may end before its seeding did: creations still in flight are waited for
+         * up to fixtures.timeout.seconds, and anything created later is deleted once it exists
+         */
+        public void cleanup() {
+            if (scenarioScoped.isEmpty() || !configReader.getBooleanProperty("fixtures.cleanup", true)) {
+                return;
+            }
+            awaitQuietly(scenarioScoped.values());
+            Map<String, AccountPool.Account> created = new LinkedHashMap<>();
+            scenarioScoped.forEach((key, future) -> {
+                String type = key.substring(0, key.indexOf(':'));
+                if (!future.isDone()) {
+                    future.thenAccept(fixture -> deleteAll(Map.of(deleteUrl(type, fixture), owner)));
+                } else if (!future.isCompletedExceptionally()) {
+                    created.put(deleteUrl(type, future.join()), owner);
+                }
+            });
+            scenarioScoped.clear();
+            deleteAll(created);
+        }
+
+        private void startAll(String scenarioName) {
+            definitions.forEach((key, definition) -> {
+                Object scenarios = definition.get("scenarios");
+                if (!(scenarios instanceof Collection) || ((Collection<?>) scenarios).contains(scenarioName)) {
+                    start(key, new HashSet<>());
+                }
+            });
+        }
+
+        private CompletableFuture<Map<String, Object>> start(String key, Set<String> visiting) {
+            CompletableFuture<Map<String, Object>> future = started.get(key);
+            if (future != null) {
+                return future;
+            }
+            if (!visiting.add(key)) {
+                throw new IllegalStateException("Fixture reference cycle through " + key);
+            }
+            Map<String, Object> definition = definitions.get(key);
+            if (definition == null) {
+                definition = new LinkedHashMap<>();
+                definition.put("type", key.substring(0, key.indexOf(':')));
+                definition.put("name", key.substring(key.indexOf(':') + 1));
+                definition.put("scope", SCENARIO_SCOPE);
+            }
+            boolean featureScoped = feature != null && isFeatureScoped(definition);
+            Map<String, CompletableFuture<Map<String, Object>>> dependencies = new LinkedHashMap<>();
+            for (String reference : references(definition, new ArrayList<>())) {
+                if (featureScoped && !isFeatureScoped(definitions.get(reference))) {
+                    throw new IllegalStateException("Feature scoped fixture " + key
+                            + " cannot reference scenario scoped " + reference);
+                }
+                dependencies.put(reference, start(reference, visiting));
+            }
+            visiting.remove(key);
+
+            Map<String, Object> body = definition;
+            if (featureScoped) {
+                String sharedKey = feature + "|" + owner.getEmail() + "|" + key;
+                CompletableFuture<Map<String, Object>> created = featureFixtures.computeIfAbsent(sharedKey,
+                        k -> create(key, body, dependencies));
+                // A failed fixture is retried by the next scenario instead of failing all of them
+                created.whenComplete((fixture, error) -> {
+                    if (error != null) {
+                        featureFixtures.remove(sharedKey, created);
+                    }
+                });
+                future = created;
+            } else {
+                future = create(key, body, dependencies);
+                scenarioScoped.put(key, future);
+            }
+            started.put(key, future);
+            return future;
+        }
+
+        private CompletableFuture<Map<String, Object>> create(String key, Map<String, Object> definition,
+                Map<String, CompletableFuture<Map<String, Object>>> dependencies) {
+            return CompletableFuture.allOf(dependencies.values().toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignored -> {
+                        Map<String, Object> ids = new LinkedHashMap<>();
+                        dependencies.forEach((reference, dependency) -> ids.put(reference, dependency.join().get("id")));
+                        String unique = UUID.randomUUID().toString().substring(0, 8);
+                        Map<String, Object> body = new LinkedHashMap<>();
+                        definition.forEach((field, value) -> {
+                            if (!META_FIELDS.contains(field)) {
+                                body.put(field, resolve(value, ids, unique));
+                            }
+                        });
+                        String type = (String) definition.get("type");
+                        Map<String, Object> fixture = post(owner, type, body);
+                        if (isFeatureScoped(definition) && feature != null) {
+                            featureCreated.put(deleteUrl(type, fixture), owner);
+                        }
+                        return fixture;
+                    }, executor);
+        }
+
+        private Map<String, Object> await(String key, CompletableFuture<Map<String, Object>> future) {
+            try {
+                return future.get(configReader.getLongProperty("fixtures.timeout.seconds", 30), TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Fixture " + key + " could not be created: "
+                        + e.getCause().getMessage(), e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Fixture " + key + " was not created in time", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for fixture " + key, e);
+            }
+        }
+    }
+
+    /**
+     * Check if preconditions are seeded through the API
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return configReader.getBooleanProperty("fixtures.enabled", false);
+    }
+
+    /**
+     * Check if a feature declares fixtures
+     *
+     * @param feature Feature URI
+     * @return boolean
+     */
+    public static boolean hasSpec(URI feature) {
+        return loadSpec(feature).isPresent();
+    }
+
+    /**
+     * Get the role of the account that owns a feature's fixtures
+     *
+     * @param feature Feature URI, or null
+     * @return Spec role, or fixtures.owner.role
+     */
+    public static String getOwnerRole(URI feature) {
+        Optional<Spec> spec = feature != null ? loadSpec(feature) : Optional.empty();
+        return spec.map(s -> s.role).orElseGet(() -> configReader.getProperty("fixtures.owner.role", "provider"));
+    }
+
+    /**
+     * Start creating the fixtures a feature's spec declares for a scenario; returns without waiting
+     *
+     * @param feature      Feature URI
+     * @param scenarioName Scenario name, matched against each fixture's "scenarios"
+     * @param owner        Account the fixtures are created as
+     * @return Scenario fixtures
+     */
+    public static Fixtures seed(URI feature, String scenarioName, AccountPool.Account owner) {
+        Fixtures fixtures = new Fixtures(feature, owner,
+                loadSpec(feature).map(spec -> spec.definitions).orElse(Map.of()));
+        fixtures.startAll(scenarioName);
+        logger.info("Seeding {} fixture(s) for '{}' as {}", fixtures.started.size(), scenarioName, owner.getEmail());
+        return fixtures;
+    }
+
+    /**
+     * Fixtures created on demand by steps of a feature without a spec
+     *
+     * @param owner Account the fixtures are created as
+     * @return Scenario fixtures
+     */
+    public static Fixtures onDemand(AccountPool.Account owner) {
+        return new Fixtures(null, owner, Map.of());
+    }
+
+    private static Optional<Spec> loadSpec(URI feature) {
+        return specs.computeIfAbsent(feature, FixtureSeeder::readSpec);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<Spec> readSpec(URI feature) {
+        String path = feature.getSchemeSpecificPart();
+        int features = path.lastIndexOf("features/");
+        if (features < 0) {
+            return Optional.empty();
+        }
+        String resource = "fixtures/" + path.substring(features + "features/".length()).replaceFirst("\\.feature$", ".json");
+        InputStream in = FixtureSeeder.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            return Optional.empty();
+        }
+        Map<String, Object> spec;
+        try (InputStream stream = in) {
+            spec = JSON.toType(new String(stream.readAllBytes(), StandardCharsets.UTF_8), Map.class);
+        } catch (IOException | JsonException e) {
+            throw new IllegalStateException("Cannot read fixture spec " + resource + ": " + e.getMessage(), e);
+        }
+        Map<String, Map<String, Object>> definitions = new LinkedHashMap<>();
+        for (Object entry : (Collection<Object>) spec.getOrDefault("fixtures", List.of())) {
+            Map<String, Object> definition = (Map<String, Object>) entry;
+            if (!(definition.get("type") instanceof String) || !(definition.get("name") instanceof String)) {
+                throw new IllegalStateException("Fixture in " + resource + " needs a type and a name: " + definition);
+            }
+            definitions.put(key((String) definition.get("type"), (String) definition.get("name")), definition);
+        }
+        for (Map.Entry<String, Map<String, Object>> definition : definitions.entrySet()) {
+            for (String reference : references(definition.getValue(), new ArrayList<>())) {
+                if (!definitions.containsKey(reference)) {
+                    throw new IllegalStateException("Fixture " + definition.getKey() + " in " + resource
+                            + " references undeclared " + reference);
+                }
+            }
+        }
+        String role = spec.get("role") instanceof String ? (String) spec.get("role")
+                : configReader.getProperty("fixtures.owner.role", "provider");
+        logger.debug("Loaded {} fixture(s) from {}", definitions.size(), resource);
+        return Optional.of(new Spec(role, definitions));
+    }
+
+    private static String key(String type, String name) {
+        return type + ":" + name;
+    }
+
+    private static boolean isFeatureScoped(Map<String, Object> definition) {
+        return definition != null && FEATURE_SCOPE.equals(definition.getOrDefault("scope", SCENARIO_SCOPE));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> references(Object value, List<String> found) {
+        if (value instanceof String) {
+            Matcher matcher = REFERENCE.matcher((String) value);
+            while (matcher.find()) {
+                found.add(key(matcher.group(1), matcher.group(2)));
+            }
+        } else if (value instanceof Map) {
+            ((Map<String, Object>) value).forEach((field, nested) -> {
+                if (!META_FIELDS.contains(field)) {
+                    references(nested, found);
+                }
+            });
+        } else if (value instanceof Collection) {
+            ((Collection<Object>) value).forEach(nested -> references(nested, found));
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object resolve(Object value, Map<String, Object> ids, String unique) {
+        if (value instanceof String) {
+            String text = ((String) value).replace(UNIQUE, unique);
+            Matcher matcher = REFERENCE.matcher(text);
+            if (matcher.matches()) {
+                // A whole-value reference keeps the id's JSON type
+                return ids.get(key(matcher.group(1), matcher.group(2)));
+            }
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(
+                        String.valueOf(ids.get(key(matcher.group(1), matcher.group(2))))));
+            }
+            return matcher.appendTail(resolved).toString();
+        } else if (value instanceof Map) {
+            Map<String, Object> resolved = new LinkedHashMap<>();
+            ((Map<String, Object>) value).forEach((field, nested) -> resolved.put(field, resolve(nested, ids, unique)));
+            return resolved;
+        } else if (value instanceof Collection) {
+            List<Object> resolved = new ArrayList<>();
+            ((Collection<Object>) value).forEach(nested -> resolved.add(resolve(nested, ids, unique)));
+            return resolved;
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> post(AccountPool.Account owner, String type, Map<String, Object> body) {
+        long start = System.currentTimeMillis();
+        HttpResponse<String> response = send(owner, "POST", endpoint(type), JSON.toJson(body));
+        if (response.statusCode() != 200 && response.statusCode() != 201) {
+            throw new IllegalStateException("API rejected " + type + " '" + body.get("name") + "': HTTP "
+                    + response.statusCode() + " " + response.body());
+        }
+        Map<String, Object> fixture = new LinkedHashMap<>(body);
+        fixture.putAll(JSON.toType(response.body(), Map.class));
+        if (fixture.get("id") == null) {
+            throw new IllegalStateException("API returned no id for " + type + " '" + body.get("name") + "'");
+        }
+        logger.info("Seeded {} '{}' (id {}) in {}ms", type, body.get("name"), fixture.get("id"),
+                System.currentTimeMillis() - start);
+        return fixture;
+    }
+
+    /**
+     * Delete the feature scoped fixtures once every scenario has finished
+     * Called from an @AfterAll hook rather than a JVM shutdown hook, which races Log4j's shutdown
+     */
+    public static void cleanupFeatureFixtures() {
+        if (featureFixtures.isEmpty() || !configReader.getBooleanProperty("fixtures.cleanup", true)) {
+            return;
+        }
+        awaitQuietly(featureFixtures.values());
+        Map<String, AccountPool.Account> created = new LinkedHashMap<>(featureCreated);
+        featureCreated.clear();
+        featureFixtures.clear();
+        deleteAll(created);
+        logger.info("Deleted {} feature scoped fixture(s)", created.size());
+    }
+
+    /**
+     * Wait for fixture creations to settle, successfully or not, up to fixtures.timeout.seconds in total
+     *
+     * @param futures Fixture creations
+     */
+    private static void awaitQuietly(Collection<CompletableFuture<Map<String, Object>>> futures) {
+        try {
+            CompletableFuture.allOf(futures.stream()
+                            .map(future -> future.exceptionally(error -> null))
+                            .toArray(CompletableFuture[]::new))
+                    .get(configReader.getLongProperty("fixtures.timeout.seconds", 30), TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Fixture creation still running at cleanup: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteAll(Map<String, AccountPool.Account> created) {
+        List<CompletableFuture<Void>> deletions = new ArrayList<>();
+        created.forEach((url, owner) -> deletions.add(CompletableFuture.runAsync(() -> {
+            try {
+                int status = send(owner, "DELETE", url, null).statusCode();
+                if (status >= 300 && status != 404) {
+                    logger.warn("Failed to delete fixture {}: HTTP {}", url, status);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to delete fixture {}: {}", url, e.getMessage());
+            }
+        }, executor)));
+        try {
+            CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0]))
+                    .get(configReader.getLongProperty("fixtures.timeout.seconds", 30), TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Fixture cleanup did not finish: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static HttpResponse<String> send(AccountPool.Account owner, String method, String url, String body) {
+        // A token rejected with 401 has expired; fetch a new one once
+        for (int attempt = 1; ; attempt++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(configReader.getIntProperty("fixtures.timeout.seconds", 30)))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .header("Authorization", "Bearer " + token(owner))
+                    .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body)
+                            : HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<String> response;
+            try {
+                response = ApiLogin.getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                throw new IllegalStateException("API " + url + " unreachable: " + e.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while calling " + url, e);
+            }
+            if (response.statusCode() != 401 || attempt == 2) {
+                return response;
+            }
+            tokens.remove(owner.getEmail());
+        }
+    }
+
+    private static String token(AccountPool.Account owner) {
+        // Not computeIfAbsent: the login call would block the map while holding its lock
+        String token = tokens.get(owner.getEmail());
+        if (token == null) {
+            token = ApiLogin.getAccessToken(owner.getEmail(), owner.getPassword());
+            tokens.put(owner.getEmail(), token);
+        }
+        return token;
+    }
+
+    private static String endpoint(String type) {
+        String base = configReader.getBooleanProperty("fixtures.stub.enabled", false)
+                ? StubFixtureServer.start() : configReader.getProperty("fixtures.api.url", "");
+        if (base.isBlank()) {
+            throw new IllegalStateException("fixtures.api.url is not set");
+        }
+        return base.replaceFirst("/$", "") + configReader.getProperty("fixtures.api.path." + type, "/api/" + type + "s");
+    }
+
+    private static String deleteUrl(String type, Map<String, Object> fixture) {
+        return endpoint(type) + "/" + fixture.get("id");
+    }
+}
@@ -0,0 +1,217 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NavigationPlanner class defers page loads until something needs the page.
+ * A planned driver records get()/navigate().to() instead of loading the URL;
+ * the load happens right before the next call that reads or drives the page.
+ * A navigation replaced by another one before that (e.g. the base URL opened
+ * by Hooks followed by the first step's own navigation) is never loaded.
+ * The number of page loads saved is logged at the end of the run
+ */
+public class NavigationPlanner {
+
+    private static final Logger logger = LogManager.getLogger(NavigationPlanner.class);
+    private static final ConfigReader configReader = new ConfigReader();
+    // Calls that neither need nor change the current page
+    private static final Set<String> PASS_THROUGH = Set.of("getCapabilities", "executeCdpCommand", "getScreenshotAs");
+    private static final AtomicLong requested = new AtomicLong();
+    private static final AtomicLong saved = new AtomicLong();
+
+    /**
+     * Invocation handler of a planned driver, holding the pending navigation
+     */
+    private static class Planner implements InvocationHandler {
+        private final WebDriver target;
+        private String pending;
+
+        Planner(WebDriver target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "get":
+                    defer((String) args[0]);
+                    return null;
+                case "navigate":
+                    return navigation();
+                case "quit":
+                case "close":
+                    discard();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Planned(" + target + ")";
+                default:
+                    if (!PASS_THROUGH.contains(method.getName())) {
+                        flush();
+                    }
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        void defer(String url) {
+            requested.incrementAndGet();
+            if (pending != null) {
+                saved.incrementAndGet();
+                logger.debug("Collapsed navigation to {} into {}", pending, url);
+            }
+            pending = url;
+        }
+
+        void discard() {
+            if (pending != null) {
+                saved.incrementAndGet();
+                logger.debug("Dropped navigation to {}, the page was never used", pending);
+                pending = null;
+            }
+        }
+
+        void flush() {
+            if (pending != null) {
+                String url = pending;
+                pending = null;
+                AppReadiness.navigate(target, url);
+            }
+        }
+
+        private WebDriver.Navigation navigation() {
+            return new WebDriver.Navigation() {
+                @Override
+                public void to(String url) {
+                    defer(url);
+                }
+
+                @Override
+                public void to(URL url) {
+                    defer(url.toString());
+                }
+
+                @Override
+                public void back() {
+                    flush();
+                    target.navigate().back();
+                }
+
+                @Override
+                public void forward() {
+                    flush();
+                    target.navigate().forward();
+                }
+
+                @Override
+                public void refresh() {
+                    if (pending != null) {
+                        // The pending load gives a fresh page anyway
+                        flush();
+                        return;
+                    }
+                    target.navigate().refresh();
+                }
+            };
+        }
+    }
+
+    /**
+     * Log how many of the requested page loads were never needed
+     */
+    public static void logMetrics() {
+        if (requested.get() > 0) {
+            logger.info("Navigation planner: {} of {} requested page load(s) saved", saved.get(), requested.get());
+        }
+    }
+
+    /**
+     * Check if navigation planning is enabled
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return configReader.getBooleanProperty("navigation.planner.enabled", false);
+    }
+
+    /**
+     * Wrap a driver so its navigations are deferred and collapsed
+     *
+     * @param driver WebDriver instance
+     * @return Planned driver exposing the same interfaces, or the driver itself when disabled
+     */
+    public static WebDriver plan(WebDriver driver) {
+        if (driver == null || isPlanned(driver) || !isEnabled()) {
+            return driver;
+        }
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = driver.getClass(); type != null; type = type.getSuperclass()) {
+            collectPublicInterfaces(type, interfaces);
+        }
+        return (WebDriver) Proxy.newProxyInstance(NavigationPlanner.class.getClassLoader(),
+                interfaces.toArray(new Class<?>[0]), new Planner(driver));
+    }
+
+    /**
+     * Check if a driver defers its navigations
+     *
+     * @param driver WebDriver instance
+     * @return boolean
+     */
+    public static boolean isPlanned(WebDriver driver) {
+        return driver != null && Proxy.isProxyClass(driver.getClass()) && Proxy.getInvocationHandler(driver) instanceof Planner;
+    }
+
+    /**
+     * Check if a driver holds a navigation that has not loaded yet
+     *
+     * @param driver WebDriver instance, planned or not
+     * @return boolean
+     */
+    public static boolean hasPendingNavigation(WebDriver driver) {
+        return isPlanned(driver) && ((Planner) Proxy.getInvocationHandler(driver)).pending != null;
+    }
+
+    /**
+     * Take direct control of the browser, for callers that must load a page at a precise moment
+     * A pending navigation is dropped, since the caller is about to navigate itself
+     *
+     * @param driver WebDriver instance, planned or not (may be null)
+     * @return Underlying driver
+     */
+    public static WebDriver takeOver(WebDriver driver) {
+        if (!isPlanned(driver)) {
+            return driver;
+        }
+        Planner planner = (Planner) Proxy.getInvocationHandler(driver);
+        planner.discard();
+        return planner.target;
+    }
+
+    private static void collectPublicInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> candidate : type.getInterfaces()) {
+            if (Modifier.isPublic(candidate.getModifiers())) {
+                interfaces.add(candidate);
+            }
+            collectPublicInterfaces(candidate, interfaces);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * OrphanProcessReaper class records every driver and browser process this run
+ * launches in a run-scoped registry file. Leftovers are killed by a JVM
+ * shutdown hook, and registry files left behind by earlier runs that crashed
+ * or were aborted are cleaned up (their processes killed) at start-up.
+ * The hook runs while Log4j shuts down, so it does not log; the leftovers are
+ * counted by {@link #logSummary()} from the run's @AfterAll hook instead
+ */
+public class OrphanProcessReaper {
+
+    private static final Logger logger = LogManager.getLogger(OrphanProcessReaper.class);
+    private static final String REGISTRY_SUFFIX = ".pids";
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final List<RecordedProcess> recorded = new ArrayList<>();
+    private static Path registryFile;
+    private static boolean initialized;
+
+    /**
+     * Process entry as written to the registry: "pid startMillis command"
+     */
+    private static class RecordedProcess {
+        final long pid;
+        final long startMillis;
+        final String command;
+
+        RecordedProcess(long pid, long startMillis, String command) {
+            this.pid = pid;
+            this.startMillis = startMillis;
+            this.command = command;
+        }
+
+        static RecordedProcess of(ProcessHandle process) {
+            return new RecordedProcess(process.pid(),
+                    process.info().startInstant().map(Instant::toEpochMilli).orElse(-1L),
+                    process.info().command().map(c -> Paths.get(c).getFileName().toString()).orElse("?"));
+        }
+
+        static RecordedProcess parse(String line) {
+            String[] parts = line.trim().split(" ", 3);
+            return new RecordedProcess(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                    parts.length > 2 ? parts[2] : "?");
+        }
+
+        /**
+         * Find the live process this entry refers to, guarding against PID reuse
+         */
+        Optional<ProcessHandle> live() {
+            return ProcessHandle.of(pid).filter(ProcessHandle::isAlive).filter(process -> {
+                Optional<Instant> start = process.info().startInstant();
+                if (startMillis > 0 && start.isPresent()) {
+                    return start.get().toEpochMilli() == startMillis;
+                }
+                return process.info().command().map(c -> c.endsWith(command)).orElse(false);
+            });
+        }
+
+        @Override
+        public String toString() {
+            return pid + " " + startMillis + " " + command;
+        }
+    }
+
+    /**
+     * Clean up after earlier crashed runs and install the shutdown hook, once per JVM
+     * Called from the run's @BeforeAll hook, before any browser is launched
+     */
+    public static synchronized void initialize() {
+        if (initialized || !configReader.getBooleanProperty("process.reaper.enabled", false)) {
+            return;
+        }
+        initialized = true;
+        Path dir = registryDir();
+        try {
+            Files.createDirectories(dir);
+            reapStaleRegistries(dir);
+            ProcessHandle self = ProcessHandle.current();
+            registryFile = dir.resolve(self.pid() + "-"
+                    + self.info().startInstant().map(Instant::toEpochMilli).orElse(0L) + REGISTRY_SUFFIX);
+            Files.createFile(registryFile);
+        } catch (IOException e) {
+            logger.warn("Process registry unavailable, orphan cleanup disabled: {}", e.getMessage());
+            registryFile = null;
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(OrphanProcessReaper::reapLeftovers, "orphan-process-reaper"));
+    }
+
+    /**
+     * Record a process launched by this run, together with its current descendants
+     *
+     * @param process Driver service or browser process
+     */
+    public static synchronized void record(ProcessHandle process) {
+        if (registryFile == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        process.descendants().forEach(child -> lines.add(track(RecordedProcess.of(child))));
+        lines.add(0, track(RecordedProcess.of(process)));
+        lines.removeIf(line -> line == null);
+        try {
+            Files.write(registryFile, lines, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("Failed to write process registry {}: {}", registryFile, e.getMessage());
+        }
+    }
+
+    private static String track(RecordedProcess entry) {
+        for (RecordedProcess known : recorded) {
+            if (known.pid == entry.pid && known.startMillis == entry.startMillis) {
+                return null;
+            }
+        }
+        recorded.add(entry);
+        return entry.toString();
+    }
+
+    /**
+     * Log how many recorded processes are still running now that every scenario has finished
+     * Pooled and pre-launched browsers quit from their own shutdown hooks; whatever has not
+     * quit within process.reaper.grace.seconds after that is killed
+     */
+    public static void logSummary() {
+        List<RecordedProcess> entries;
+        synchronized (OrphanProcessReaper.class) {
+            if (registryFile == null) {
+                return;
+            }
+            entries = new ArrayList<>(recorded);
+        }
+        long running = entries.stream().filter(e -> e.live().isPresent()).count();
+        logger.info("Process reaper: {} driver/browser process(es) recorded, {} still running at end of run"
+                + " (killed at shutdown unless they quit within {}s)", entries.size(), running,
+                configReader.getLongProperty("process.reaper.grace.seconds", 5));
+    }
+
+    /**
+     * Shutdown hook: give graceful quits a moment, then kill whatever this run left alive
+     */
+    private static void reapLeftovers() {
+        List<RecordedProcess> entries;
+        synchronized (OrphanProcessReaper.class) {
+            entries = new ArrayList<>(recorded);
+        }
+        long deadline = System.currentTimeMillis() + configReader.getLongProperty("process.reaper.grace.seconds", 5) * 1000;
+        while (System.currentTimeMillis() < deadline && entries.stream().anyMatch(e -> e.live().isPresent())) {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        kill(entries);
+        try {
+            Files.deleteIfExists(registryFile);
+        } catch (IOException ignored) {
+            // Removed as stale by the next run
+        }
+    }
+
+    /**
+     * Kill processes recorded by earlier runs whose JVM is no longer alive
+     *
+     * @param dir Registry directory
+     */
+    private static void reapStaleRegistries(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + REGISTRY_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    reapStaleRegistry(file);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    logger.warn("Skipping malformed process registry {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void reapStaleRegistry(Path file) throws IOException {
+        String[] owner = file.getFileName().toString().replace(REGISTRY_SUFFIX, "").split("-");
+        RecordedProcess ownerJvm = new RecordedProcess(Long.parseLong(owner[0]), Long.parseLong(owner[1]), "java");
+        if (ownerJvm.live().isPresent()) {
+            // Another run on this machine is still active
+            return;
+        }
+        List<RecordedProcess> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                entries.add(RecordedProcess.parse(line));
+            }
+        }
+        int killed = kill(entries);
+        Files.deleteIfExists(file);
+        if (killed > 0) {
+            logger.warn("Killed {} orphaned driver/browser process(es) left by crashed run {}", killed, owner[0]);
+        }
+    }
+
+    private static int kill(List<RecordedProcess> entries) {
+        int killed = 0;
+        for (RecordedProcess entry : entries) {
+            Optional<ProcessHandle> process = entry.live();
+            if (process.isPresent()) {
+                process.get().descendants().forEach(ProcessHandle::destroyForcibly);
+                process.get().destroyForcibly();
+                killed++;
+            }
+        }
+        return killed;
+    }
+
+    private static Path registryDir() {
+        return Paths.get(configReader.getProperty("process.registry.dir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "mtomics-automation", "pids").toString()));
+    }
+}
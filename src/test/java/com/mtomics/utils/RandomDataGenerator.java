@@ -4,8 +4,8 @@ import com.github.javafaker.Faker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * RandomDataGenerator class provides methods for generating random test data
@@ -13,8 +13,8 @@ import java.util.UUID;
 public class RandomDataGenerator {
 
     private static final Logger logger = LogManager.getLogger(RandomDataGenerator.class);
-    private static final Faker faker = new Faker();
-    private static final Random random = new Random();
+    // Faker is not thread-safe; each scenario thread gets its own instance
+    private static final ThreadLocal<Faker> faker = ThreadLocal.withInitial(Faker::new);
 
     /**
      * Generate random first name
@@ -22,7 +22,7 @@ public class RandomDataGenerator {
      * @return Random first name
      */
     public static String getRandomFirstName() {
-        String firstName = faker.name().firstName();
+        String firstName = faker.get().name().firstName();
         logger.debug("Generated first name: {}", firstName);
         return firstName;
     }
@@ -33,7 +33,7 @@ public class RandomDataGenerator {
      * @return Random last name
      */
     public static String getRandomLastName() {
-        String lastName = faker.name().lastName();
+        String lastName = faker.get().name().lastName();
         logger.debug("Generated last name: {}", lastName);
         return lastName;
     }
@@ -44,7 +44,7 @@ public class RandomDataGenerator {
      * @return Random full name
      */
     public static String getRandomFullName() {
-        String fullName = faker.name().fullName();
+        String fullName = faker.get().name().fullName();
         logger.debug("Generated full name: {}", fullName);
         return fullName;
     }
@@ -55,7 +55,7 @@ public class RandomDataGenerator {
      * @return Random email
      */
     public static String getRandomEmail() {
-        String email = faker.internet().emailAddress();
+        String email = faker.get().internet().emailAddress();
         logger.debug("Generated email: {}", email);
         return email;
     }
@@ -67,7 +67,7 @@ public class RandomDataGenerator {
      * @return Random email with specified domain
      */
     public static String getRandomEmailWithDomain(String domain) {
-        String username = faker.name().username();
+        String username = faker.get().name().username();
         String email = username + "@" + domain;
         logger.debug("Generated email: {}", email);
         return email;
@@ -79,7 +79,7 @@ public class RandomDataGenerator {
      * @return Random test email
      */
     public static String getRandomTestEmail() {
-        String username = faker.name().username() + getRandomNumber(1000, 9999);
+        String username = faker.get().name().username() + getRandomNumber(1000, 9999);
         String email = username + "@mailinator.com";
         logger.debug("Generated test email: {}", email);
         return email;
@@ -106,16 +106,16 @@ public class RandomDataGenerator {
         StringBuilder password = new StringBuilder();
 
         // Ensure at least one of each type
-        password.append(upperCase.charAt(random.nextInt(upperCase.length())));
-        password.append(lowerCase.charAt(random.nextInt(lowerCase.length())));
-        password.append(numbers.charAt(random.nextInt(numbers.length())));
+        password.append(upperCase.charAt(ThreadLocalRandom.current().nextInt(upperCase.length())));
+        password.append(lowerCase.charAt(ThreadLocalRandom.current().nextInt(lowerCase.length())));
+        password.append(numbers.charAt(ThreadLocalRandom.current().nextInt(numbers.length())));
         if (includeSpecialChars) {
-            password.append(specialChars.charAt(random.nextInt(specialChars.length())));
+            password.append(specialChars.charAt(ThreadLocalRandom.current().nextInt(specialChars.length())));
         }
 
         // Fill remaining length
         for (int i = password.length(); i < length; i++) {
-            password.append(allChars.charAt(random.nextInt(allChars.length())));
+            password.append(allChars.charAt(ThreadLocalRandom.current().nextInt(allChars.length())));
         }
 
         // Shuffle the password
@@ -130,7 +130,7 @@ public class RandomDataGenerator {
      * @return Random phone number
      */
     public static String getRandomPhoneNumber() {
-        String phoneNumber = faker.phoneNumber().phoneNumber();
+        String phoneNumber = faker.get().phoneNumber().phoneNumber();
         logger.debug("Generated phone number: {}", phoneNumber);
         return phoneNumber;
     }
@@ -142,9 +142,9 @@ public class RandomDataGenerator {
      */
     public static String getRandomUSPhoneNumber() {
         String phoneNumber = String.format("%03d-%03d-%04d",
-                random.nextInt(900) + 100,
-                random.nextInt(900) + 100,
-                random.nextInt(9000) + 1000);
+                ThreadLocalRandom.current().nextInt(900) + 100,
+                ThreadLocalRandom.current().nextInt(900) + 100,
+                ThreadLocalRandom.current().nextInt(9000) + 1000);
         logger.debug("Generated US phone number: {}", phoneNumber);
         return phoneNumber;
     }
@@ -155,7 +155,7 @@ public class RandomDataGenerator {
      * @return Random address
      */
     public static String getRandomAddress() {
-        String address = faker.address().streetAddress();
+        String address = faker.get().address().streetAddress();
         logger.debug("Generated address: {}", address);
         return address;
     }
@@ -166,7 +166,7 @@ public class RandomDataGenerator {
      * @return Random city
      */
     public static String getRandomCity() {
-        return faker.address().city();
+        return faker.get().address().city();
     }
 
     /**
@@ -175,7 +175,7 @@ public class RandomDataGenerator {
      * @return Random state
      */
     public static String getRandomState() {
-        return faker.address().state();
+        return faker.get().address().state();
     }
 
     /**
@@ -184,7 +184,7 @@ public class RandomDataGenerator {
      * @return Random zip code
      */
     public static String getRandomZipCode() {
-        return faker.address().zipCode();
+        return faker.get().address().zipCode();
     }
 
     /**
@@ -195,7 +195,7 @@ public class RandomDataGenerator {
      * @return Random number
      */
     public static int getRandomNumber(int min, int max) {
-        return random.nextInt(max - min + 1) + min;
+        return ThreadLocalRandom.current().nextInt(max - min + 1) + min;
     }
 
     /**
@@ -208,7 +208,7 @@ public class RandomDataGenerator {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         StringBuilder result = new StringBuilder();
         for (int i = 0; i < length; i++) {
-            result.append(chars.charAt(random.nextInt(chars.length())));
+            result.append(chars.charAt(ThreadLocalRandom.current().nextInt(chars.length())));
         }
         return result.toString();
     }
@@ -228,7 +228,7 @@ public class RandomDataGenerator {
      * @return Random company name
      */
     public static String getRandomCompanyName() {
-        return faker.company().name();
+        return faker.get().company().name();
     }
 
     /**
@@ -237,7 +237,7 @@ public class RandomDataGenerator {
      * @return Random job title
      */
     public static String getRandomJobTitle() {
-        return faker.job().title();
+        return faker.get().job().title();
     }
 
     /**
@@ -247,7 +247,7 @@ public class RandomDataGenerator {
      * @return Random text
      */
     public static String getRandomText(int wordCount) {
-        return faker.lorem().sentence(wordCount);
+        return faker.get().lorem().sentence(wordCount);
     }
 
     /**
@@ -256,7 +256,7 @@ public class RandomDataGenerator {
      * @return Random paragraph
      */
     public static String getRandomParagraph() {
-        return faker.lorem().paragraph();
+        return faker.get().lorem().paragraph();
     }
 
     /**
@@ -265,7 +265,7 @@ public class RandomDataGenerator {
      * @return Random boolean
      */
     public static boolean getRandomBoolean() {
-        return random.nextBoolean();
+        return ThreadLocalRandom.current().nextBoolean();
     }
 
     /**
@@ -288,7 +288,7 @@ public class RandomDataGenerator {
     private static String shuffleString(String input) {
         char[] characters = input.toCharArray();
         for (int i = 0; i < characters.length; i++) {
-            int randomIndex = random.nextInt(characters.length);
+            int randomIndex = ThreadLocalRandom.current().nextInt(characters.length);
             char temp = characters[i];
             characters[i] = characters[randomIndex];
             characters[randomIndex] = temp;
@@ -304,7 +304,7 @@ public class RandomDataGenerator {
      * @return Random item
      */
     public static <T> T getRandomItemFromArray(T[] items) {
-        return items[random.nextInt(items.length)];
+        return items[ThreadLocalRandom.current().nextInt(items.length)];
     }
 
     /**
@@ -313,6 +313,6 @@ public class RandomDataGenerator {
      * @return Random username
      */
     public static String getRandomUsername() {
-        return faker.name().username() + getRandomNumber(100, 999);
+        return faker.get().name().username() + getRandomNumber(100, 999);
     }
 }
@@ -0,0 +1,146 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ResourceLocks class serializes scenarios that change the same shared backend
+ * state. A scenario tagged @lock:name holds lock "name" for its whole run, in
+ * this JVM and (through a lock file) across Surefire forks; scenarios without
+ * a common lock still run fully in parallel
+ */
+public class ResourceLocks {
+
+    private static final Logger logger = LogManager.getLogger(ResourceLocks.class);
+    private static final String TAG_PREFIX = "@lock:";
+    private static final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private static final ConfigReader configReader = new ConfigReader();
+
+    /**
+     * A resource lock held by the current scenario
+     */
+    public static class HeldLock {
+        private final String name;
+        private final ReentrantLock lock;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        HeldLock(String name, ReentrantLock lock, FileChannel channel, FileLock fileLock) {
+            this.name = name;
+            this.lock = lock;
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+    }
+
+    /**
+     * Get the resource names requested by a scenario's tags, in lock order
+     *
+     * @param tags Scenario tags
+     * @return Sorted resource names
+     */
+    public static List<String> resourceNames(Collection<String> tags) {
+        TreeSet<String> names = new TreeSet<>();
+        for (String tag : tags) {
+            if (tag.startsWith(TAG_PREFIX) && tag.length() > TAG_PREFIX.length()) {
+                names.add(tag.substring(TAG_PREFIX.length()).toLowerCase());
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Acquire every resource lock a scenario's tags ask for, blocking until all are free
+     * Locks are always taken in name order, so two scenarios can never deadlock
+     *
+     * @param tags Scenario tags
+     * @return Held locks, to be returned with {@link #release(List)}
+     */
+    public static List<HeldLock> acquire(Collection<String> tags) {
+        List<String> names = resourceNames(tags);
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<HeldLock> held = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        try {
+            for (String name : names) {
+                held.add(acquire(name));
+            }
+        } catch (RuntimeException e) {
+            release(held);
+            throw e;
+        }
+        long waited = System.currentTimeMillis() - start;
+        if (waited > 50) {
+            logger.info("Waited {}ms for resource lock(s) {}", waited, names);
+        } else {
+            logger.debug("Acquired resource lock(s) {}", names);
+        }
+        return held;
+    }
+
+    /**
+     * Release locks in reverse acquisition order
+     *
+     * @param held Locks returned by {@link #acquire(Collection)}
+     */
+    public static void release(List<HeldLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            HeldLock lock = held.get(i);
+            try {
+                lock.fileLock.release();
+                lock.channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to release lock file of resource {}: {}", lock.name, e.getMessage());
+            } finally {
+                lock.lock.unlock();
+            }
+        }
+    }
+
+    private static HeldLock acquire(String name) {
+        // In-JVM lock first: a JVM may hold a file lock only once, and threads wait here without polling
+        ReentrantLock lock = locks.computeIfAbsent(name, key -> new ReentrantLock(true));
+        lock.lock();
+        try {
+            FileChannel channel = FileChannel.open(lockFile(name), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                // Blocks until the fork holding the resource lets it go
+                return new HeldLock(name, lock, channel, channel.lock());
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            lock.unlock();
+            throw new IllegalStateException("Failed to lock resource '" + name + "'", e);
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    private static Path lockFile(String name) throws IOException {
+        Path dir = Paths.get(configReader.getProperty("resource.lock.dir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "mtomics-automation", "locks").toString()));
+        Files.createDirectories(dir);
+        return dir.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".lock");
+    }
+}
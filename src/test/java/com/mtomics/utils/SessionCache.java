@@ -0,0 +1,305 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionCache class keeps the signed-in browser state of every account that
+ * logged in during this run: cookies plus localStorage and sessionStorage.
+ * A new browser gets the cached state injected before it loads the app, so
+ * only the first scenario per account goes through the login UI. Sessions
+ * older than session.cache.ttl.minutes, with expiring cookies, or bounced to
+ * the sign-in page are dropped and captured again after the next UI login
+ */
+public class SessionCache {
+
+    private static final Logger logger = LogManager.getLogger(SessionCache.class);
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private static final Json JSON = new Json();
+    private static final String RESTORED_FLAG = "__mtomicsSessionRestored";
+    private static final long COOKIE_EXPIRY_MARGIN_MILLIS = 60_000;
+    private static final String SIGN_IN_PATH = "/sign-in";
+
+    private static final String READ_STORAGE_SCRIPT =
+            "var read = function (storage) {"
+                    + "  var items = {};"
+                    + "  for (var i = 0; i < storage.length; i++) { items[storage.key(i)] = storage.getItem(storage.key(i)); }"
+                    + "  return items;"
+                    + "};"
+                    + "return { local: read(window.localStorage), session: read(window.sessionStorage) };";
+
+    // Writes the cached storage once per tab, and only on the application origin
+    private static final String WRITE_STORAGE_SCRIPT =
+            "(function (origin, local, session, flag) {"
+                    + "  if (window.location.origin !== origin || window.sessionStorage.getItem(flag)) { return; }"
+                    + "  Object.keys(local).forEach(function (key) { window.localStorage.setItem(key, local[key]); });"
+                    + "  Object.keys(session).forEach(function (key) { window.sessionStorage.setItem(key, session[key]); });"
+                    + "  window.sessionStorage.setItem(flag, '1');"
+                    + "})(%s, %s, %s, %s);";
+
+    /**
+     * Signed-in browser state of one account
+     */
+    public static class Session {
+        private final Set<Cookie> cookies;
+        private final Map<String, String> localStorage;
+        private final Map<String, String> sessionStorage;
+        private final String landingUrl;
+        private final long capturedAt;
+
+        Session(Set<Cookie> cookies, Map<String, String> localStorage, Map<String, String> sessionStorage,
+                String landingUrl) {
+            this.cookies = cookies;
+            this.localStorage = localStorage;
+            this.sessionStorage = sessionStorage;
+            this.landingUrl = landingUrl;
+            this.capturedAt = System.currentTimeMillis();
+        }
+
+        /**
+         * Get the page the app showed right after login
+         *
+         * @return URL
+         */
+        public String getLandingUrl() {
+            return landingUrl;
+        }
+
+        /**
+         * Get the reason this session can no longer be trusted
+         *
+         * @param ttlMillis Maximum session age
+         * @return Reason, or null while the session is fresh
+         */
+        String expiryReason(long ttlMillis) {
+            long now = System.currentTimeMillis();
+            if (now - capturedAt > ttlMillis) {
+                return "older than " + ttlMillis / 60_000 + " minute(s)";
+            }
+            for (Cookie cookie : cookies) {
+                if (cookie.getExpiry() != null && cookie.getExpiry().getTime() < now + COOKIE_EXPIRY_MARGIN_MILLIS) {
+                    return "cookie " + cookie.getName() + " expires at " + cookie.getExpiry();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Check if login sessions are cached and reused
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return configReader.getBooleanProperty("session.cache.enabled", false);
+    }
+
+    /**
+     * Get the cached session of an account, dropping it if it has expired
+     *
+     * @param account Account email
+     * @return Session, or null if there is none to reuse
+     */
+    public static Session get(String account) {
+        Session session = sessions.get(account);
+        if (session == null) {
+            return null;
+        }
+        String reason = session.expiryReason(configReader.getLongProperty("session.cache.ttl.minutes", 30) * 60_000);
+        if (reason != null) {
+            logger.info("Cached session of {} expired ({}), logging in again", account, reason);
+            sessions.remove(account, session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Capture the signed-in state of the current page's app after a UI login
+     *
+     * @param account Account email
+     * @param driver  WebDriver instance, on the page reached after login
+     */
+    public static void capture(String account, WebDriver driver) {
+        try {
+            Session session = snapshot(driver);
+            sessions.put(account, session);
+            logger.info("Cached session of {}: {} cookie(s), {} localStorage and {} sessionStorage item(s)",
+                    account, session.cookies.size(), session.localStorage.size(), session.sessionStorage.size());
+        } catch (Exception e) {
+            logger.warn("Failed to capture session of {}: {}", account, e.getMessage());
+        }
+    }
+
+    /**
+     * Take the current page's URL, cookies and web storage
+     *
+     * @param driver WebDriver instance
+     * @return Session that reopens the current page in this state
+     */
+    @SuppressWarnings("unchecked")
+    static Session snapshot(WebDriver driver) {
+        Map<String, Object> storage = (Map<String, Object>) ((JavascriptExecutor) driver)
+                .executeScript(READ_STORAGE_SCRIPT);
+        Map<String, String> sessionStorage = toStrings((Map<String, Object>) storage.get("session"));
+        sessionStorage.remove(RESTORED_FLAG);
+        return new Session(driver.manage().getCookies(), toStrings((Map<String, Object>) storage.get("local")),
+                sessionStorage, driver.getCurrentUrl());
+    }
+
+    /**
+     * Inject a cached session into a browser and open the app's landing page with it
+     * With CDP the cookies and storage are in place before the first document loads;
+     * other browsers first load the application origin to set them
+     *
+     * @param driver  WebDriver instance
+     * @param session Cached session
+     * @return true if the app accepted the session, false if it asked to sign in again
+     */
+    public static boolean restore(WebDriver driver, Session session) {
+        // The landing page must load while the injected storage script is registered
+        driver = NavigationPlanner.takeOver(driver);
+        String origin = origin(configReader.getBaseUrl());
+        String storageScript = String.format(WRITE_STORAGE_SCRIPT, JSON.toJson(origin),
+                JSON.toJson(session.localStorage), JSON.toJson(session.sessionStorage), JSON.toJson(RESTORED_FLAG));
+        if (driver instanceof HasCdp) {
+            HasCdp cdp = (HasCdp) driver;
+            cdp.executeCdpCommand("Network.setCookies", Map.of("cookies", toCdpCookies(session.cookies)));
+            Object scriptId = cdp.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument",
+                    Map.of("source", storageScript)).get("identifier");
+            try {
+                AppReadiness.navigate(driver, session.landingUrl);
+            } finally {
+                // A pooled browser must not write this session into the next scenario's pages
+                cdp.executeCdpCommand("Page.removeScriptToEvaluateOnNewDocument", Map.of("identifier", scriptId));
+            }
+        } else {
+            String current = driver.getCurrentUrl();
+            if (current == null || !current.startsWith(origin)) {
+                driver.get(origin + "/");
+            }
+            for (Cookie cookie : session.cookies) {
+                try {
+                    driver.manage().addCookie(cookie);
+                } catch (Exception e) {
+                    logger.debug("Cookie {} not restored: {}", cookie.getName(), e.getMessage());
+                }
+            }
+            ((JavascriptExecutor) driver).executeScript(storageScript);
+            AppReadiness.navigate(driver, session.landingUrl);
+        }
+        if (!isAccepted(driver)) {
+            logger.info("Cached session was rejected by the app");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wait for the app to decide on the injected session: the single-page app checks it
+     * after the landing page has loaded and redirects to sign-in asynchronously.
+     * With session.auth.marker set, the session is accepted once that element shows;
+     * otherwise it is accepted if the app stays off sign-in for session.restore.verify.seconds
+     *
+     * @param driver WebDriver instance, on the landing page
+     * @return true if the app accepted the session
+     */
+    private static boolean isAccepted(WebDriver driver) {
+        AppReadiness.waitUntilReady(driver);
+        String marker = configReader.getProperty("session.auth.marker", "");
+        WebDriverWait wait = new WebDriverWait(driver,
+                Duration.ofSeconds(configReader.getIntProperty("session.restore.verify.seconds", 3)));
+        wait.pollingEvery(Duration.ofMillis(200));
+        if (marker.isBlank()) {
+            try {
+                wait.until(d -> d.getCurrentUrl().contains(SIGN_IN_PATH));
+                return false;
+            } catch (TimeoutException e) {
+                return true;
+            }
+        }
+        try {
+            wait.until(d -> d.getCurrentUrl().contains(SIGN_IN_PATH) || !d.findElements(By.cssSelector(marker)).isEmpty());
+        } catch (TimeoutException e) {
+            logger.info("Signed-in marker '{}' did not appear after restoring the session", marker);
+            return false;
+        }
+        return !driver.getCurrentUrl().contains(SIGN_IN_PATH);
+    }
+
+    /**
+     * Cache a session obtained without the login form
+     *
+     * @param account Account email
+     * @param session Session
+     */
+    public static void put(String account, Session session) {
+        sessions.put(account, session);
+    }
+
+    /**
+     * Forget the cached session of an account
+     *
+     * @param account Account email
+     */
+    public static void invalidate(String account) {
+        sessions.remove(account);
+    }
+
+    private static List<Map<String, Object>> toCdpCookies(Set<Cookie> cookies) {
+        List<Map<String, Object>> params = new ArrayList<>();
+        for (Cookie cookie : cookies) {
+            Map<String, Object> param = new HashMap<>();
+            param.put("name", cookie.getName());
+            param.put("value", cookie.getValue());
+            param.put("path", cookie.getPath() != null ? cookie.getPath() : "/");
+            param.put("secure", cookie.isSecure());
+            param.put("httpOnly", cookie.isHttpOnly());
+            if (cookie.getDomain() != null) {
+                param.put("domain", cookie.getDomain());
+            } else {
+                param.put("url", configReader.getBaseUrl());
+            }
+            if (cookie.getSameSite() != null) {
+                param.put("sameSite", cookie.getSameSite());
+            }
+            if (cookie.getExpiry() != null) {
+                param.put("expires", cookie.getExpiry().getTime() / 1000.0);
+            }
+            params.add(param);
+        }
+        return params;
+    }
+
+    private static Map<String, String> toStrings(Map<String, Object> items) {
+        Map<String, String> strings = new LinkedHashMap<>();
+        if (items != null) {
+            items.forEach((key, value) -> strings.put(key, String.valueOf(value)));
+        }
+        return strings;
+    }
+
+    private static String origin(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+}
@@ -0,0 +1,207 @@
+package com.mtomics.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * SharedBrowserContexts class runs many isolated sessions inside one shared
+ * Chrome process. Each session attaches its own chromedriver to the shared
+ * browser and works in a separate CDP browser context (own cookie jar and
+ * storage), so parallel scenario threads do not each need a full browser
+ */
+public class SharedBrowserContexts {
+
+    private static final Logger logger = LogManager.getLogger(SharedBrowserContexts.class);
+    private static final Map<WebDriver, Context> contexts = new ConcurrentHashMap<>();
+    private static final ConfigReader configReader = new ConfigReader();
+    // Guards the shared browser; a ReentrantLock so threads waiting on a launch do not pin virtual-thread carriers
+    private static final ReentrantLock SHARED_BROWSER_LOCK = new ReentrantLock();
+    private static WebDriver sharedBrowser;
+    private static String debuggerAddress;
+
+    /**
+     * Browser context of one session and the tab it was opened with
+     */
+    private static class Context {
+        private final String id;
+        private final String targetId;
+
+        Context(String id, String targetId) {
+            this.id = id;
+            this.targetId = targetId;
+        }
+    }
+
+    /**
+     * Check if shared browser contexts are enabled
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return configReader.getBooleanProperty("browser.contexts.enabled", false);
+    }
+
+    /**
+     * Open a new isolated browser context in the shared browser
+     *
+     * @param browserOptions Options the shared browser is launched with
+     * @param launcher       Launches a chromedriver session for the given options
+     * @return WebDriver whose current window lives in its own browser context
+     */
+    public static WebDriver openContext(ChromeOptions browserOptions, Function<ChromeOptions, WebDriver> launcher) {
+        String address = getDebuggerAddress(browserOptions, launcher);
+        ChromeOptions attachOptions = new ChromeOptions();
+        attachOptions.setExperimentalOption("debuggerAddress", address);
+        WebDriver driver = launcher.apply(attachOptions);
+        try {
+            HasCdp cdp = (HasCdp) driver;
+            String contextId = (String) cdp.executeCdpCommand("Target.createBrowserContext", Map.of())
+                    .get("browserContextId");
+            String targetId = (String) cdp.executeCdpCommand("Target.createTarget",
+                    Map.of("url", "about:blank", "browserContextId", contextId)).get("targetId");
+            // chromedriver uses CDP target ids as window handles
+            driver.switchTo().window(targetId);
+            contexts.put(driver, new Context(contextId, targetId));
+            logger.info("Opened browser context {} in shared browser ({} active)", contextId, contexts.size());
+            return driver;
+        } catch (RuntimeException e) {
+            DriverManager.destroyDriver(driver);
+            throw e;
+        }
+    }
+
+    /**
+     * Dispose the browser context of a session, closing its windows
+     * Must be called before the attached session quits
+     *
+     * @param driver WebDriver instance
+     */
+    public static void closeContext(WebDriver driver) {
+        Context context = contexts.remove(driver);
+        if (context == null) {
+            return;
+        }
+        String contextId = context.id;
+        try {
+            ((HasCdp) driver).executeCdpCommand("Target.disposeBrowserContext", Map.of("browserContextId", contextId));
+            logger.debug("Disposed browser context {}", contextId);
+        } catch (Exception e) {
+            logger.warn("Failed to dispose browser context {}: {}", contextId, e.getMessage());
+        }
+    }
+
+    /**
+     * Get the window a session started with
+     *
+     * @param driver WebDriver instance
+     * @return Handle of the context's first tab, or the current window for sessions with their own browser
+     */
+    public static String getHomeHandle(WebDriver driver) {
+        Context context = contexts.get(driver);
+        return context != null ? context.targetId : driver.getWindowHandle();
+    }
+
+    /**
+     * Get the windows that belong to a session
+     * Sessions attached to the shared browser see the tabs of every context; only their own are returned
+     *
+     * @param driver WebDriver instance
+     * @return Window handles of the session's browser context
+     */
+    @SuppressWarnings("unchecked")
+    public static Set<String> getWindowHandles(WebDriver driver) {
+        Context context = contexts.get(driver);
+        if (context == null) {
+            return driver.getWindowHandles();
+        }
+        Set<String> own = new LinkedHashSet<>();
+        List<Map<String, Object>> targets = (List<Map<String, Object>>) ((HasCdp) driver)
+                .executeCdpCommand("Target.getTargets", Map.of()).get("targetInfos");
+        for (Map<String, Object> target : targets) {
+            if ("page".equals(target.get("type")) && context.id.equals(target.get("browserContextId"))) {
+                own.add((String) target.get("targetId"));
+            }
+        }
+        own.retainAll(driver.getWindowHandles());
+        return own;
+    }
+
+    /**
+     * Forget the browser context of a session that died, without talking to it
+     *
+     * @param driver WebDriver instance
+     */
+    public static void forgetContext(WebDriver driver) {
+        contexts.remove(driver);
+    }
+
+    /**
+     * Quit the shared browser
+     */
+    public static void shutdown() {
+        SHARED_BROWSER_LOCK.lock();
+        try {
+            if (sharedBrowser != null) {
+                logger.info("Closing shared browser ({} context(s) still open)", contexts.size());
+                contexts.keySet().forEach(SharedBrowserContexts::closeContext);
+                DriverManager.destroyDriver(sharedBrowser);
+                sharedBrowser = null;
+                debuggerAddress = null;
+            }
+        } finally {
+            SHARED_BROWSER_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Launch the shared browser on first use and return its DevTools address
+     *
+     * @param browserOptions Options the shared browser is launched with
+     * @param launcher       Launches a chromedriver session for the given options
+     * @return DevTools address, e.g. localhost:9222
+     */
+    private static String getDebuggerAddress(ChromeOptions browserOptions,
+            Function<ChromeOptions, WebDriver> launcher) {
+        SHARED_BROWSER_LOCK.lock();
+        try {
+            return getOrLaunchSharedBrowser(browserOptions, launcher);
+        } finally {
+            SHARED_BROWSER_LOCK.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getOrLaunchSharedBrowser(ChromeOptions browserOptions,
+            Function<ChromeOptions, WebDriver> launcher) {
+        if (debuggerAddress != null && !DriverSupervisor.isAlive(sharedBrowser)) {
+            logger.warn("Shared browser is gone, relaunching it");
+            DriverProcessTracker.getProcess(sharedBrowser).ifPresent(DriverProcessTracker::killTree);
+            DriverManager.releaseResources(sharedBrowser);
+            debuggerAddress = null;
+        }
+        if (debuggerAddress == null) {
+            boolean firstLaunch = sharedBrowser == null;
+            sharedBrowser = launcher.apply(browserOptions);
+            Map<String, Object> chromeCapabilities = (Map<String, Object>) ((HasCapabilities) sharedBrowser)
+                    .getCapabilities().getCapability("goog:chromeOptions");
+            debuggerAddress = (String) chromeCapabilities.get("debuggerAddress");
+            if (firstLaunch) {
+                Runtime.getRuntime().addShutdownHook(new Thread(SharedBrowserContexts::shutdown, "shared-browser-shutdown"));
+            }
+            logger.info("Shared browser started, DevTools at {}", debuggerAddress);
+        }
+        return debuggerAddress;
+    }
+}
@@ -0,0 +1,111 @@
+package com.mtomics.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * StubAuthServer class is a local stand-in for the MTOmics auth endpoint, so
+ * the API login path can run without network access. It accepts the accounts
+ * configured for auth.stub.roles and answers like the real endpoint: a JSON
+ * body with an access and a refresh token, plus an HttpOnly session cookie
+ */
+public class StubAuthServer {
+
+    private static final Logger logger = LogManager.getLogger(StubAuthServer.class);
+    public static final String LOGIN_PATH = "/api/auth/login";
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final Json JSON = new Json();
+    private static final long TOKEN_LIFETIME_SECONDS = 3600;
+    private static HttpServer server;
+
+    /**
+     * Start the stub once per JVM
+     *
+     * @return Login URL of the running stub
+     */
+    public static synchronized String start() {
+        if (server == null) {
+            Map<String, AccountPool.Account> credentials = new HashMap<>();
+            for (String role : configReader.getProperty("auth.stub.roles", "admin,provider,client").split(",")) {
+                try {
+                    AccountPool.accountsFor(role.trim().toLowerCase())
+                            .forEach(account -> credentials.put(account.getEmail().toLowerCase(), account));
+                } catch (IllegalArgumentException e) {
+                    logger.debug("Stub auth server: no accounts for role {}", role.trim());
+                }
+            }
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        configReader.getIntProperty("auth.stub.port", 0)), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException("Stub auth server failed to start", e);
+            }
+            server.createContext(LOGIN_PATH, exchange -> handleLogin(exchange, credentials));
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(0), "stub-auth-server-shutdown"));
+            logger.info("Stub auth server listening on port {} ({} account(s))",
+                    server.getAddress().getPort(), credentials.size());
+        }
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + LOGIN_PATH;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void handleLogin(HttpExchange exchange, Map<String, AccountPool.Account> credentials)
+            throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, Map.of("error", "method not allowed"));
+                return;
+            }
+            Map<String, Object> request;
+            try {
+                request = JSON.toType(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8),
+                        Map.class);
+            } catch (JsonException e) {
+                respond(exchange, 400, Map.of("error", "malformed JSON"));
+                return;
+            }
+            String email = String.valueOf(request.get("email")).toLowerCase();
+            AccountPool.Account account = credentials.get(email);
+            if (account == null || !account.getPassword().equals(request.get("password"))) {
+                respond(exchange, 401, Map.of("error", "Incorrect email or password"));
+                return;
+            }
+            String token = "stub-" + UUID.randomUUID();
+            exchange.getResponseHeaders().add("Set-Cookie", "mtomics_session=" + UUID.randomUUID()
+                    + "; Path=/; HttpOnly; Max-Age=" + TOKEN_LIFETIME_SECONDS);
+            respond(exchange, 200, Map.of(
+                    "token", token,
+                    "refreshToken", "stub-refresh-" + UUID.randomUUID(),
+                    "expiresIn", TOKEN_LIFETIME_SECONDS,
+                    "user", Map.of("email", account.getEmail(), "role", account.getRole())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] bytes = JSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().put("Content-Type", List.of("application/json"));
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
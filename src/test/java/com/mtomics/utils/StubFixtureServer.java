@@ -0,0 +1,124 @@
+package com.mtomics.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StubFixtureServer class is a local stand-in for the MTOmics backend API that
+ * FixtureSeeder creates preconditions through, so seeding can run without
+ * network access. Every /api/{collection} accepts JSON entities: POST stores
+ * one and returns it with a generated id, GET lists or reads them and DELETE
+ * removes one. Requests need a bearer token, like the real API
+ */
+public class StubFixtureServer {
+
+    private static final Logger logger = LogManager.getLogger(StubFixtureServer.class);
+    private static final String API_PATH = "/api/";
+    private static final ConfigReader configReader = new ConfigReader();
+    private static final Json JSON = new Json();
+    // Entities by collection, then id
+    private static final Map<String, Map<String, Map<String, Object>>> collections = new ConcurrentHashMap<>();
+    private static final AtomicLong ids = new AtomicLong();
+    private static HttpServer server;
+
+    /**
+     * Start the stub once per JVM
+     *
+     * @return Base URL of the running stub
+     */
+    public static synchronized String start() {
+        if (server == null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        configReader.getIntProperty("fixtures.stub.port", 0)), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException("Stub fixture server failed to start", e);
+            }
+            server.createContext(API_PATH, StubFixtureServer::handle);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(0), "stub-fixture-server-shutdown"));
+            logger.info("Stub fixture server listening on port {}", server.getAddress().getPort());
+        }
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                respond(exchange, 401, Map.of("error", "missing bearer token"));
+                return;
+            }
+            // /api/{collection} or /api/{collection}/{id}
+            String[] path = exchange.getRequestURI().getPath().substring(API_PATH.length()).split("/");
+            if (path.length > 2 || path[0].isEmpty()) {
+                respond(exchange, 404, Map.of("error", "not found"));
+                return;
+            }
+            Map<String, Map<String, Object>> entities = collections.computeIfAbsent(path[0],
+                    collection -> new ConcurrentHashMap<>());
+            String method = exchange.getRequestMethod();
+            if (path.length == 1 && "POST".equals(method)) {
+                Map<String, Object> entity;
+                try {
+                    entity = JSON.toType(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8),
+                            Map.class);
+                } catch (JsonException e) {
+                    respond(exchange, 400, Map.of("error", "malformed JSON"));
+                    return;
+                }
+                if (entity == null || entity.get("name") == null) {
+                    respond(exchange, 400, Map.of("error", "name is required"));
+                    return;
+                }
+                Map<String, Object> created = new LinkedHashMap<>(entity);
+                created.put("id", String.valueOf(ids.incrementAndGet()));
+                entities.put((String) created.get("id"), created);
+                respond(exchange, 201, created);
+            } else if (path.length == 1 && "GET".equals(method)) {
+                respond(exchange, 200, new ArrayList<>(entities.values()));
+            } else if (path.length == 2 && "GET".equals(method)) {
+                Map<String, Object> entity = entities.get(path[1]);
+                respond(exchange, entity != null ? 200 : 404, entity != null ? entity : Map.of("error", "not found"));
+            } else if (path.length == 2 && "DELETE".equals(method)) {
+                if (entities.remove(path[1]) == null) {
+                    respond(exchange, 404, Map.of("error", "not found"));
+                    return;
+                }
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                respond(exchange, 405, Map.of("error", "method not allowed"));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = JSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().put("Content-Type", List.of("application/json"));
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -5,12 +5,8 @@ Feature: Admin Invite Manager
   So that they can help manage the system
 
   Background:
-    Given I navigate to the MTOmics login page
-    When I enter email "ajith.r+admin@spritle.com"
-    And I enter password "Qwerty@123"
-    And I click the sign in button
-    Then I should be redirected to the users page
-    And I should see the user management page
+    Given I am logged in as an admin
+    Then I should see the user management page
     And I click the new invite button
 
   @smoke @positive
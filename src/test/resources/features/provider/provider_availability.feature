@@ -1,3 +1,4 @@
+@lock:availability
 Feature: Provider Availability Management
   As a provider
   I want to manage my availability schedule
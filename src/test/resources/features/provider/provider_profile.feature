@@ -1,3 +1,4 @@
+@lock:profile
 Feature: Provider Profile Management
   As a provider
   I want to manage my profile information
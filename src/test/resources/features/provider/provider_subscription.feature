@@ -1,3 +1,4 @@
+@lock:subscription
 Feature: Provider Subscription Management (Chargebee)
   As a provider
   I want to manage my subscription plan
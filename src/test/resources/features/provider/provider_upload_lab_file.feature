@@ -1,3 +1,4 @@
+@checkpoint
 Feature: Provider Lab File Upload
   As a provider
   I want to upload lab files for my clients